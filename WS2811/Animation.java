@@ -0,0 +1,35 @@
+/*
+ * Copyright (C) 2016 Jim Darby.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+/**
+ * Something that draws frames for an Animator.
+ * 
+ * @author Jim Darby
+ */
+
+public interface Animation
+{
+    /**
+     * Draw a frame. The Animator shows it afterwards.
+     * @param strip Where to draw it.
+     * @param frame The frame number. This jumps if frames were dropped.
+     * @param nanos The time of the frame in nanoseconds since the animation
+     * started.
+     */
+    void frame (WS2811 strip, long frame, long nanos);
+}
@@ -0,0 +1,237 @@
+/*
+ * Copyright (C) 2016 Jim Darby.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+import java.util.Arrays;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Run an Animation at a fixed frame rate. Frames are scheduled from the start
+ * time rather than from the previous frame so timing doesn't drift. If a
+ * frame runs late we skip the frames we've missed rather than trying to catch
+ * up and count them as dropped.
+ *
+ * Use an asynchronous WS2811 so drawing the next frame overlaps sending the
+ * last one.
+ * 
+ * @author Jim Darby
+ */
+
+public class Animator extends Thread
+{
+    /**
+     * Create an animator. It needs to be started as usual.
+     * @param strip The strip to draw on.
+     * @param animation What to draw.
+     * @param fps The target frames per second.
+     */
+    public Animator (WS2811 strip, Animation animation, double fps)
+    {
+	super ("WS2811 animator");
+
+	if (strip == null || animation == null || !(fps > 0))
+	    throw new IllegalArgumentException ("Invalid parameter to Animator");
+
+	strip_ = strip;
+	animation_ = animation;
+	period_ = (long) (1e9 / fps);
+	running_ = true;
+	samples_ = new long[SAMPLES];
+	frames_ = 0;
+	dropped_ = 0;
+	busy_ = 0;
+	started_ = 0;
+    }
+
+    /**
+     * Change the target frame rate. This takes effect from the next frame.
+     * @param fps The target frames per second.
+     */
+    public void setFps (double fps)
+    {
+	if (!(fps > 0))
+	    throw new IllegalArgumentException ("Invalid parameter to Animator.setFps");
+
+	period_ = (long) (1e9 / fps);
+    }
+
+    /**
+     * Stop the animation and wait for it to finish.
+     */
+    public void shutdown ()
+    {
+	running_ = false;
+	LockSupport.unpark (this);
+
+	try {
+	    join ();
+	}
+
+	catch (InterruptedException e) {
+	    Thread.currentThread ().interrupt ();
+	}
+    }
+
+    /**
+     * The main loop.
+     */
+    @Override
+    public void run ()
+    {
+	final long start = System.nanoTime ();
+	long frame = 0;
+	long deadline = start;
+
+	synchronized (this) {
+	    started_ = start;
+	}
+
+	while (running_) {
+	    final long before = System.nanoTime ();
+
+	    animation_.frame (strip_, frame, before - start);
+	    strip_.show ();
+
+	    final long after = System.nanoTime ();
+
+	    record (after - before);
+
+	    // Work out when the next frame is due. Deadlines always advance in
+	    // whole periods from the start so there is no drift.
+	    final long period = period_;
+
+	    deadline += period;
+	    frame += 1;
+
+	    if (after - deadline > 0) {
+		// We've missed at least one. Skip to the next one in the future.
+		final long missed = (after - deadline) / period + 1;
+
+		deadline += missed * period;
+		frame += missed;
+
+		synchronized (this) {
+		    dropped_ += missed;
+		}
+	    }
+
+	    long left;
+
+	    while (running_ && (left = deadline - System.nanoTime ()) > 0)
+		LockSupport.parkNanos (this, left);
+	}
+    }
+
+    /**
+     * Obtain the number of frames drawn.
+     * @return The count.
+     */
+    public synchronized long getFrames ()
+    {
+	return frames_;
+    }
+
+    /**
+     * Obtain the number of frames skipped because we were late.
+     * @return The count.
+     */
+    public synchronized long getDropped ()
+    {
+	return dropped_;
+    }
+
+    /**
+     * Obtain the frame rate actually achieved since we started.
+     * @return The frames per second.
+     */
+    public synchronized double getAchievedFps ()
+    {
+	final long elapsed = System.nanoTime () - started_;
+
+	return (started_ == 0 || elapsed <= 0) ? 0 : frames_ * 1e9 / elapsed;
+    }
+
+    /**
+     * Obtain the fraction of the time spent drawing and showing frames. This
+     * is a measure of how much of a core the display takes.
+     * @return The load in the range 0 to 1.
+     */
+    public synchronized double getLoad ()
+    {
+	final long elapsed = System.nanoTime () - started_;
+
+	return (started_ == 0 || elapsed <= 0) ? 0 : ((double) busy_) / elapsed;
+    }
+
+    /**
+     * Obtain a percentile of the time taken to draw and show a frame over the
+     * recent frames.
+     * @param percentile The percentile in the range 0 to 100.
+     * @return The time in nanoseconds, 0 if there are no frames yet.
+     */
+    public long getRenderPercentile (double percentile)
+    {
+	if (percentile < 0 || percentile > 100)
+	    throw new IllegalArgumentException ("Invalid parameter to Animator.getRenderPercentile");
+
+	final long[] sorted;
+
+	synchronized (this) {
+	    sorted = Arrays.copyOf (samples_, (int) Math.min (frames_, SAMPLES));
+	}
+
+	if (sorted.length == 0)
+	    return 0;
+
+	Arrays.sort (sorted);
+
+	return sorted[(int) Math.min (sorted.length - 1, Math.floor (percentile / 100 * sorted.length))];
+    }
+
+    /**
+     * Record the time taken for a frame.
+     * @param nanos The time.
+     */
+    private synchronized void record (long nanos)
+    {
+	samples_[(int) (frames_ % SAMPLES)] = nanos;
+	frames_ += 1;
+	busy_ += nanos;
+    }
+
+    /** How many frame times we keep for the percentiles. */
+    private static final int SAMPLES = 1024;
+
+    /** The strip we draw on. */
+    private final WS2811 strip_;
+    /** What we draw. */
+    private final Animation animation_;
+    /** The time between frames in nanoseconds. */
+    private volatile long period_;
+    /** Should we keep going? */
+    private volatile boolean running_;
+    /** The most recent frame times, used as a ring. */
+    private final long[] samples_;
+    /** The number of frames drawn. */
+    private long frames_;
+    /** The number of frames skipped. */
+    private long dropped_;
+    /** The total time spent drawing and showing. */
+    private long busy_;
+    /** When we started. */
+    private long started_;
+}
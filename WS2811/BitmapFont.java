@@ -0,0 +1,201 @@
+/*
+ * Copyright (C) 2016 Jim Darby.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+/**
+ * A small bitmap font. The glyphs are turned into columns of bits once, when
+ * the font is built, so drawing text is just copying bits. Lower case letters
+ * are drawn as upper case and anything we don't know is drawn as '?'.
+ * 
+ * @author Jim Darby
+ */
+
+public class BitmapFont
+{
+    /**
+     * Build a font from glyph pictures. Each glyph is a character followed by
+     * height rows of width characters where '#' is lit and anything else
+     * isn't.
+     * @param width The width of every glyph.
+     * @param height The height of every glyph.
+     * @param glyphs The glyphs.
+     */
+    public BitmapFont (int width, int height, String[] glyphs)
+    {
+	if (width <= 0 || height <= 0 || height > 31 || glyphs == null || glyphs.length % (height + 1) != 0)
+	    throw new IllegalArgumentException ("Invalid parameter to BitmapFont");
+
+	width_ = width;
+	height_ = height;
+	columns_ = new int[GLYPHS][];
+
+	for (int i = 0; i < glyphs.length; i += height + 1) {
+	    if (glyphs[i].length () != 1)
+		throw new IllegalArgumentException ("Bad glyph name in BitmapFont: " + glyphs[i]);
+
+	    final int index = index (glyphs[i].charAt (0));
+
+	    if (index < 0)
+		throw new IllegalArgumentException ("Unsupported glyph in BitmapFont: " + glyphs[i]);
+
+	    final int[] columns = new int[width];
+
+	    for (int y = 0; y < height; ++y) {
+		final String row = glyphs[i + 1 + y];
+
+		if (row.length () != width)
+		    throw new IllegalArgumentException ("Bad glyph row in BitmapFont for " + glyphs[i]);
+
+		for (int x = 0; x < width; ++x)
+		    if (row.charAt (x) == '#')
+			columns[x] |= 1 << y;
+	    }
+
+	    columns_[index] = columns;
+	}
+
+	if (columns_[index ('?')] == null)
+	    throw new IllegalArgumentException ("BitmapFont must have a '?' glyph");
+    }
+
+    /**
+     * Obtain the width of a glyph, not including the gap between glyphs.
+     * @return The width.
+     */
+    public int getWidth ()
+    {
+	return width_;
+    }
+
+    /**
+     * Obtain the height of a glyph.
+     * @return The height.
+     */
+    public int getHeight ()
+    {
+	return height_;
+    }
+
+    /**
+     * Obtain the width of some text including a one column gap after each
+     * glyph.
+     * @param text The text.
+     * @return The width.
+     */
+    public int textWidth (String text)
+    {
+	return text.length () * (width_ + 1);
+    }
+
+    /**
+     * Obtain the columns of a glyph. Bit y of each is set if that row is lit.
+     * The array belongs to the font so don't change it.
+     * @param c The character.
+     * @return The columns.
+     */
+    public int[] glyph (char c)
+    {
+	int index = index (Character.toUpperCase (c));
+
+	if (index < 0 || columns_[index] == null)
+	    index = index ('?');
+
+	return columns_[index];
+    }
+
+    /**
+     * Work out where a character lives in the table.
+     * @param c The character.
+     * @return The index or -1 if we can't hold it.
+     */
+    private static int index (char c)
+    {
+	if (c == DEGREE)
+	    return GLYPHS - 1;
+
+	return (c >= ' ' && c < 0x7f) ? c - ' ' : -1;
+    }
+
+    /** The degree sign, the only character we hold outside ASCII. */
+    public static final char DEGREE = '\u00b0';
+
+    /** A 3 by 5 font good for small matrices. */
+    public static final BitmapFont SMALL = new BitmapFont (3, 5, new String[] {
+	" ", "...", "...", "...", "...", "...",
+	"!", ".#.", ".#.", ".#.", "...", ".#.",
+	"'", ".#.", ".#.", "...", "...", "...",
+	"(", "..#", ".#.", ".#.", ".#.", "..#",
+	")", "#..", ".#.", ".#.", ".#.", "#..",
+	"+", "...", ".#.", "###", ".#.", "...",
+	",", "...", "...", "...", ".#.", "#..",
+	"-", "...", "...", "###", "...", "...",
+	".", "...", "...", "...", "...", ".#.",
+	"/", "..#", "..#", ".#.", "#..", "#..",
+	"%", "#.#", "..#", ".#.", "#..", "#.#",
+	"0", "###", "#.#", "#.#", "#.#", "###",
+	"1", ".#.", "##.", ".#.", ".#.", "###",
+	"2", "###", "..#", "###", "#..", "###",
+	"3", "###", "..#", ".##", "..#", "###",
+	"4", "#.#", "#.#", "###", "..#", "..#",
+	"5", "###", "#..", "###", "..#", "###",
+	"6", "###", "#..", "###", "#.#", "###",
+	"7", "###", "..#", ".#.", ".#.", ".#.",
+	"8", "###", "#.#", "###", "#.#", "###",
+	"9", "###", "#.#", "###", "..#", "###",
+	":", "...", ".#.", "...", ".#.", "...",
+	"=", "...", "###", "...", "###", "...",
+	"?", "###", "..#", ".##", "...", ".#.",
+	"A", ".#.", "#.#", "###", "#.#", "#.#",
+	"B", "##.", "#.#", "##.", "#.#", "##.",
+	"C", ".##", "#..", "#..", "#..", ".##",
+	"D", "##.", "#.#", "#.#", "#.#", "##.",
+	"E", "###", "#..", "##.", "#..", "###",
+	"F", "###", "#..", "##.", "#..", "#..",
+	"G", ".##", "#..", "#.#", "#.#", ".##",
+	"H", "#.#", "#.#", "###", "#.#", "#.#",
+	"I", "###", ".#.", ".#.", ".#.", "###",
+	"J", "..#", "..#", "..#", "#.#", ".#.",
+	"K", "#.#", "#.#", "##.", "#.#", "#.#",
+	"L", "#..", "#..", "#..", "#..", "###",
+	"M", "#.#", "###", "###", "#.#", "#.#",
+	"N", "##.", "#.#", "#.#", "#.#", "#.#",
+	"O", ".#.", "#.#", "#.#", "#.#", ".#.",
+	"P", "##.", "#.#", "##.", "#..", "#..",
+	"Q", ".#.", "#.#", "#.#", "##.", ".##",
+	"R", "##.", "#.#", "##.", "#.#", "#.#",
+	"S", ".##", "#..", ".#.", "..#", "##.",
+	"T", "###", ".#.", ".#.", ".#.", ".#.",
+	"U", "#.#", "#.#", "#.#", "#.#", "###",
+	"V", "#.#", "#.#", "#.#", "#.#", ".#.",
+	"W", "#.#", "#.#", "###", "###", "#.#",
+	"X", "#.#", "#.#", ".#.", "#.#", "#.#",
+	"Y", "#.#", "#.#", ".#.", ".#.", ".#.",
+	"Z", "###", "..#", ".#.", "#..", "###",
+	"_", "...", "...", "...", "...", "###",
+	String.valueOf (DEGREE), ".#.", "#.#", ".#.", "...", "..."
+    });
+
+    /** The number of glyphs we can hold: printable ASCII and the degree sign. */
+    private static final int GLYPHS = 0x7f - ' ' + 1;
+
+    /** The width of every glyph. */
+    private final int width_;
+    /** The height of every glyph. */
+    private final int height_;
+    /** The columns of each glyph, null if we don't have it. */
+    private final int[][] columns_;
+}
@@ -0,0 +1,206 @@
+/*
+ * Copyright (C) 2016 Jim Darby.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+/**
+ * Colour correction for a frame. This holds a 256 entry lookup table per
+ * channel that combines gamma correction, brightness and white balance so
+ * correcting a pixel is three table lookups and no floating point. It is
+ * immutable so it can be swapped while frames are being sent.
+ *
+ * The tables are also kept at 16 bits (8.8 fixed point) per channel so the
+ * fraction lost when scaling down can be spread over frames by dithering.
+ *
+ * The colour order of the string is still handled by the library from the
+ * strip type.
+ * 
+ * @author Jim Darby
+ */
+
+public class ColourCorrection
+{
+    /**
+     * Create a correction from gamma, brightness and per-channel white
+     * balance.
+     * @param gamma The gamma, 1 for none. 2.2 to 2.8 is typical.
+     * @param brightness The overall brightness in the range 0 to 1.
+     * @param red The red scaling in the range 0 to 1.
+     * @param green The green scaling in the range 0 to 1.
+     * @param blue The blue scaling in the range 0 to 1.
+     */
+    public ColourCorrection (double gamma, double brightness, double red, double green, double blue)
+    {
+	if (!(gamma > 0) || !valid (brightness) || !valid (red) || !valid (green) || !valid (blue))
+	    throw new IllegalArgumentException ("Invalid parameter to ColourCorrection");
+
+	red16_ = table16 (gamma, brightness * red);
+	green16_ = table16 (gamma, brightness * green);
+	blue16_ = table16 (gamma, brightness * blue);
+	red_ = table (red16_, 16);
+	green_ = table (green16_, 8);
+	blue_ = table (blue16_, 0);
+    }
+
+    /**
+     * Create a correction from explicit tables.
+     * @param red The red table, 256 values in the range 0 to 255.
+     * @param green The green table, 256 values in the range 0 to 255.
+     * @param blue The blue table, 256 values in the range 0 to 255.
+     */
+    public ColourCorrection (int[] red, int[] green, int[] blue)
+    {
+	red_ = checked (red, 16);
+	green_ = checked (green, 8);
+	blue_ = checked (blue, 0);
+	red16_ = table16 (red);
+	green16_ = table16 (green);
+	blue16_ = table16 (blue);
+    }
+
+    /**
+     * Create a gamma only correction.
+     * @param gamma The gamma.
+     * @return The correction.
+     */
+    public static ColourCorrection gamma (double gamma)
+    {
+	return new ColourCorrection (gamma, 1, 1, 1, 1);
+    }
+
+    /**
+     * Correct a single value.
+     * @param rgb The value as 0xRRGGBB.
+     * @return The corrected value.
+     */
+    public int apply (int rgb)
+    {
+	return red_[(rgb >>> 16) & 0xff] | green_[(rgb >>> 8) & 0xff] | blue_[rgb & 0xff];
+    }
+
+    /**
+     * Correct a whole frame.
+     * @param from The values to correct.
+     * @param to Where to put the corrected values. This may be from.
+     * @param length How many values to correct.
+     */
+    public void apply (int[] from, int[] to, int length)
+    {
+	final int[] red = red_;
+	final int[] green = green_;
+	final int[] blue = blue_;
+
+	for (int i = 0; i < length; ++i) {
+	    final int value = from[i];
+
+	    to[i] = red[(value >>> 16) & 0xff] | green[(value >>> 8) & 0xff] | blue[value & 0xff];
+	}
+    }
+
+    /**
+     * Is a scaling value valid?
+     * @param value The value.
+     * @return True if it is in the range 0 to 1.
+     */
+    private static boolean valid (double value)
+    {
+	return value >= 0 && value <= 1;
+    }
+
+    /**
+     * Build a 16 bit table from a gamma and scaling.
+     * @param gamma The gamma.
+     * @param scale The scaling.
+     * @return The table of 8.8 fixed point values.
+     */
+    private static int[] table16 (double gamma, double scale)
+    {
+	final int[] result = new int[256];
+
+	for (int i = 0; i < 256; ++i)
+	    result[i] = (int) Math.round (255 * 256 * scale * Math.pow (i / 255.0, gamma));
+
+	return result;
+    }
+
+    /**
+     * Build an 8 bit table from a 16 bit one. The entries are rounded and
+     * shifted into position so they can just be or-ed together.
+     * @param values The 16 bit table.
+     * @param shift Where the channel lives in a packed value.
+     * @return The table.
+     */
+    private static int[] table (int[] values, int shift)
+    {
+	final int[] result = new int[256];
+
+	for (int i = 0; i < 256; ++i)
+	    result[i] = Math.min (255, (values[i] + 128) >> 8) << shift;
+
+	return result;
+    }
+
+    /**
+     * Build a 16 bit table from explicit 8 bit values.
+     * @param values The values.
+     * @return The table.
+     */
+    private static int[] table16 (int[] values)
+    {
+	final int[] result = new int[256];
+
+	for (int i = 0; i < 256; ++i)
+	    result[i] = values[i] << 8;
+
+	return result;
+    }
+
+    /**
+     * Build a table from explicit values.
+     * @param values The values.
+     * @param shift Where the channel lives in a packed value.
+     * @return The table.
+     */
+    private static int[] checked (int[] values, int shift)
+    {
+	if (values == null || values.length != 256)
+	    throw new IllegalArgumentException ("Invalid parameter to ColourCorrection");
+
+	final int[] result = new int[256];
+
+	for (int i = 0; i < 256; ++i) {
+	    if (values[i] < 0 || values[i] > 255)
+		throw new IllegalArgumentException ("Invalid parameter to ColourCorrection");
+
+	    result[i] = values[i] << shift;
+	}
+
+	return result;
+    }
+
+    /** The red table, pre-shifted. */
+    private final int[] red_;
+    /** The green table, pre-shifted. */
+    private final int[] green_;
+    /** The blue table, pre-shifted. */
+    private final int[] blue_;
+    /** The red table in 8.8 fixed point. */
+    final int[] red16_;
+    /** The green table in 8.8 fixed point. */
+    final int[] green16_;
+    /** The blue table in 8.8 fixed point. */
+    final int[] blue16_;
+}
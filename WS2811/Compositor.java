@@ -0,0 +1,323 @@
+/*
+ * Copyright (C) 2016 Jim Darby.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+import java.util.Arrays;
+
+/**
+ * Combine several layers into a WS2811 frame. Each layer is an ARGB buffer
+ * the size of the strip with its own opacity and blend mode. Layers are
+ * stacked in the order they were added, the first at the bottom, on a black
+ * background.
+ *
+ * The composite of everything below each layer is kept so only the layers
+ * from the lowest changed one upwards are recombined, and that is done in a
+ * single pass over the pixels with all the layers handled together. Nothing
+ * is allocated when compositing.
+ * 
+ * @author Jim Darby
+ */
+
+public class Compositor
+{
+    /**
+     * How a layer is combined with what is below it.
+     */
+    public enum Mode
+    {
+	/** The layer replaces what is below. */
+	NORMAL,
+	/** The layer is added to what is below. */
+	ADD,
+	/** The layer is multiplied with what is below. */
+	MULTIPLY,
+	/** The inverse of the product of the inverses. */
+	SCREEN
+    }
+
+    /**
+     * A single layer.
+     */
+    public class Layer
+    {
+	/**
+	 * Create a layer. Use Compositor.addLayer.
+	 * @param mode How to combine the layer.
+	 * @param opacity The opacity, 0 to 255.
+	 */
+	private Layer (Mode mode, int opacity)
+	{
+	    pixels_ = new int[pixelCount_];
+	    setMode (mode);
+	    setOpacity (opacity);
+	}
+
+	/**
+	 * Set a single pixel.
+	 * @param x The x co-ordinate.
+	 * @param y The y co-ordinate.
+	 * @param argb The colour as 0xAARRGGBB.
+	 */
+	public void setPixel (int x, int y, int argb)
+	{
+	    if (x < 0 || x >= width_ || y < 0 || y >= height_)
+		throw new IllegalArgumentException ("Invalid parameter to Compositor.Layer.setPixel");
+
+	    pixels_[x + width_ * y] = argb;
+	    changed_ = true;
+	}
+
+	/**
+	 * Fill the whole layer.
+	 * @param argb The colour as 0xAARRGGBB.
+	 */
+	public void fill (int argb)
+	{
+	    Arrays.fill (pixels_, argb);
+	    changed_ = true;
+	}
+
+	/**
+	 * Obtain the pixels, row-major values of 0xAARRGGBB, to draw into
+	 * directly. Call changed afterwards.
+	 * @return The pixels.
+	 */
+	public int[] getPixels ()
+	{
+	    return pixels_;
+	}
+
+	/**
+	 * Note that the pixels have been changed directly.
+	 */
+	public void changed ()
+	{
+	    changed_ = true;
+	}
+
+	/**
+	 * Set the opacity.
+	 * @param opacity The opacity, 0 (invisible) to 255.
+	 */
+	public void setOpacity (int opacity)
+	{
+	    if (opacity < 0 || opacity > 255)
+		throw new IllegalArgumentException ("Invalid parameter to Compositor.Layer.setOpacity");
+
+	    opacity_ = opacity;
+	    changed_ = true;
+	}
+
+	/**
+	 * Set the blend mode.
+	 * @param mode The mode.
+	 */
+	public void setMode (Mode mode)
+	{
+	    if (mode == null)
+		throw new IllegalArgumentException ("Invalid parameter to Compositor.Layer.setMode");
+
+	    mode_ = mode;
+	    changed_ = true;
+	}
+
+	/** The pixels. */
+	private final int[] pixels_;
+	/** The opacity. */
+	private int opacity_;
+	/** The blend mode. */
+	private Mode mode_;
+	/** Has it changed since we last composited? */
+	private boolean changed_;
+    }
+
+    /**
+     * Create a compositor.
+     * @param width The width, which must match the strip.
+     * @param height The height, which must match the strip.
+     * @param maxLayers The most layers we'll have.
+     */
+    public Compositor (int width, int height, int maxLayers)
+    {
+	if (width <= 0 || height <= 0 || maxLayers <= 0)
+	    throw new IllegalArgumentException ("Invalid parameter to Compositor");
+
+	width_ = width;
+	height_ = height;
+	pixelCount_ = width * height;
+	layers_ = new Layer[maxLayers];
+	below_ = new int[maxLayers][];
+	layerPixels_ = new int[maxLayers][];
+	opacities_ = new int[maxLayers];
+	modes_ = new Mode[maxLayers];
+	count_ = 0;
+    }
+
+    /**
+     * Add a layer on top of the existing ones. It starts fully transparent.
+     * @param mode How to combine it.
+     * @param opacity The opacity, 0 to 255.
+     * @return The layer.
+     */
+    public Layer addLayer (Mode mode, int opacity)
+    {
+	if (count_ == layers_.length)
+	    throw new IllegalStateException ("Compositor already has " + count_ + " layers");
+
+	final Layer layer = new Layer (mode, opacity);
+
+	// The bottom layer sits on black and needs no cache. Otherwise the new
+	// cache is empty so make the next composite start below it to fill it.
+	if (count_ == 0)
+	    below_[count_] = null;
+	else {
+	    below_[count_] = new int[pixelCount_];
+	    layers_[count_ - 1].changed_ = true;
+	}
+
+	layers_[count_] = layer;
+	count_ += 1;
+
+	return layer;
+    }
+
+    /**
+     * Combine the layers into the strip's frame. Only layers from the lowest
+     * changed one up are recombined; if nothing changed nothing is done.
+     * @param strip The strip. It must be the same size.
+     * @return True if anything was recombined.
+     */
+    public boolean composite (WS2811 strip)
+    {
+	if (strip.getWidth () != width_ || strip.getHeight () != height_)
+	    throw new IllegalArgumentException ("WS2811 size does not match Compositor");
+
+	int lowest = 0;
+
+	while (lowest < count_ && !layers_[lowest].changed_)
+	    ++lowest;
+
+	if (lowest == count_)
+	    return false;
+
+	// Pull the state out once so the loop is all local.
+	final int top = count_;
+	final int[][] layer_pixels = layerPixels_;
+	final int[] opacity = opacities_;
+	final Mode[] mode = modes_;
+	final int[][] below = below_;
+
+	for (int l = lowest; l < top; ++l) {
+	    final Layer layer = layers_[l];
+
+	    layer.changed_ = false;
+	    layer_pixels[l] = layer.pixels_;
+	    opacity[l] = layer.opacity_;
+	    mode[l] = layer.mode_;
+	}
+
+	for (int i = 0; i < pixelCount_; ++i) {
+	    int value = (lowest == 0) ? 0 : below[lowest][i];
+
+	    for (int l = lowest; l < top; ++l) {
+		if (l > lowest)
+		    below[l][i] = value;
+
+		value = blend (value, layer_pixels[l][i], opacity[l], mode[l]);
+	    }
+
+	    strip.setIndex (i, value);
+	}
+
+	return true;
+    }
+
+    /**
+     * Blend a single pixel.
+     * @param dst What is below, 0xRRGGBB.
+     * @param src The layer pixel, 0xAARRGGBB.
+     * @param opacity The layer opacity.
+     * @param mode The blend mode.
+     * @return The result, 0xRRGGBB.
+     */
+    private static int blend (int dst, int src, int opacity, Mode mode)
+    {
+	// Combine the pixel and layer alpha.
+	final int alpha = ((src >>> 24) * (opacity + 1)) >> 8;
+
+	if (alpha == 0)
+	    return dst;
+
+	final int dr = (dst >> 16) & 0xff;
+	final int dg = (dst >> 8) & 0xff;
+	final int db = dst & 0xff;
+	int r = (src >> 16) & 0xff;
+	int g = (src >> 8) & 0xff;
+	int b = src & 0xff;
+
+	switch (mode) {
+	    case ADD:
+		r = Math.min (255, dr + r);
+		g = Math.min (255, dg + g);
+		b = Math.min (255, db + b);
+		break;
+
+	    case MULTIPLY:
+		r = (dr * (r + 1)) >> 8;
+		g = (dg * (g + 1)) >> 8;
+		b = (db * (b + 1)) >> 8;
+		break;
+
+	    case SCREEN:
+		r = 255 - (((255 - dr) * (256 - r)) >> 8);
+		g = 255 - (((255 - dg) * (256 - g)) >> 8);
+		b = 255 - (((255 - db) * (256 - b)) >> 8);
+		break;
+
+	    default:
+		break;
+	}
+
+	// Now mix by alpha.
+	final int a = alpha + 1;
+
+	r = dr + (((r - dr) * a) >> 8);
+	g = dg + (((g - dg) * a) >> 8);
+	b = db + (((b - db) * a) >> 8);
+
+	return (r << 16) | (g << 8) | b;
+    }
+
+    /** The width. */
+    private final int width_;
+    /** The height. */
+    private final int height_;
+    /** The number of pixels. */
+    private final int pixelCount_;
+    /** The layers, bottom first. */
+    private final Layer[] layers_;
+    /** For each layer the composite of everything below it. */
+    private final int[][] below_;
+    /** Each layer's pixels while compositing. */
+    private final int[][] layerPixels_;
+    /** Each layer's opacity while compositing. */
+    private final int[] opacities_;
+    /** Each layer's mode while compositing. */
+    private final Mode[] modes_;
+    /** The number of layers. */
+    private int count_;
+}
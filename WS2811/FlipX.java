@@ -66,6 +66,16 @@ public class FlipX extends Mapping
 	return result;
     }
 
+    /**
+     * Perform this stage of the mapping on a packed co-ordinate.
+     * @param packed The packed point.
+     * @return The packed mapped point.
+     */
+    protected int transform (int packed)
+    {
+	return pack (inMax_.getX () - unpackX (packed), unpackY (packed));
+    }
+
     /**
      * Return a string description of the mapping.
      * @return The description.
@@ -66,6 +66,16 @@ public class FlipY extends Mapping
 	return result;
     }
     
+    /**
+     * Perform this stage of the mapping on a packed co-ordinate.
+     * @param packed The packed point.
+     * @return The packed mapped point.
+     */
+    protected int transform (int packed)
+    {
+	return pack (unpackX (packed), inMax_.getY () - unpackY (packed));
+    }
+
     /**
      * Return a string description of the mapping.
      * @return The description.
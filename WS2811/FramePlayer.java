@@ -0,0 +1,207 @@
+/*
+ * Copyright (C) 2016 Jim Darby.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+import java.io.IOException;
+
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Play a file of precomputed frames (see FrameSequence) on a WS2811. The file
+ * is memory mapped so only the frames being played are ever read in and
+ * nothing is allocated while playing.
+ *
+ * It is an Animation so the usual way to play it is with an Animator at
+ * getFps. Frames dropped by the Animator are skipped here too so playback
+ * keeps to time.
+ * 
+ * @author Jim Darby
+ */
+
+public class FramePlayer implements Animation, AutoCloseable
+{
+    /**
+     * Open a file for playing.
+     * @param file The file.
+     * @param loop True to go back to the start at the end, otherwise we stay
+     * on the last frame.
+     * @throws IOException If the file can't be read or isn't valid.
+     */
+    public FramePlayer (String file, boolean loop) throws IOException
+    {
+	channel_ = FileChannel.open (Paths.get (file), StandardOpenOption.READ);
+
+	try {
+	    final long size = channel_.size ();
+
+	    if (size < FrameSequence.HEADER_LENGTH || size > Integer.MAX_VALUE)
+		throw new IOException ("Bad frame sequence size in " + file);
+
+	    data_ = channel_.map (FileChannel.MapMode.READ_ONLY, 0, size);
+
+	    if (data_.getInt (0) != FrameSequence.MAGIC ||
+		    data_.getShort (4) != FrameSequence.VERSION ||
+		    data_.getShort (6) != FrameSequence.BYTES_PER_PIXEL)
+		throw new IOException ("Not a frame sequence: " + file);
+
+	    pixels_ = data_.getInt (FrameSequence.PIXELS_AT);
+	    fps_ = data_.getFloat (FrameSequence.FPS_AT);
+	    frames_ = data_.getInt (FrameSequence.FRAMES_AT);
+
+	    if (pixels_ <= 0 || !(fps_ > 0) || frames_ < 0 ||
+		    FrameSequence.HEADER_LENGTH + ((long) frames_) * FrameSequence.BYTES_PER_PIXEL * pixels_ > size)
+		throw new IOException ("Bad frame sequence header in " + file);
+	}
+
+	catch (IOException | RuntimeException e) {
+	    channel_.close ();
+	    throw e;
+	}
+
+	loop_ = loop;
+	position_ = 0;
+	started_ = false;
+    }
+
+    /**
+     * Obtain the frame rate the sequence should be played at.
+     * @return The frames per second.
+     */
+    public float getFps ()
+    {
+	return fps_;
+    }
+
+    /**
+     * Obtain the number of frames.
+     * @return The count.
+     */
+    public int getFrames ()
+    {
+	return frames_;
+    }
+
+    /**
+     * Obtain the number of pixels in each frame.
+     * @return The count.
+     */
+    public int getPixels ()
+    {
+	return pixels_;
+    }
+
+    /**
+     * Move to a given frame. It is shown by the next call to frame.
+     * @param frame The frame.
+     */
+    public synchronized void seek (int frame)
+    {
+	if (frame < 0 || frame >= frames_)
+	    throw new IllegalArgumentException ("Invalid parameter to FramePlayer.seek");
+
+	position_ = frame;
+	started_ = false;
+    }
+
+    /**
+     * Obtain the frame that will be shown next.
+     * @return The frame.
+     */
+    public synchronized int getPosition ()
+    {
+	return position_;
+    }
+
+    /**
+     * Draw the next frame, skipping any the Animator dropped.
+     * @param strip Where to draw it.
+     * @param frame The Animator's frame number.
+     * @param nanos The time of the frame.
+     */
+    @Override
+    public synchronized void frame (WS2811 strip, long frame, long nanos)
+    {
+	if (frames_ == 0)
+	    return;
+
+	// Catch up on anything dropped since last time.
+	if (started_) {
+	    final long next = position_ + (frame - last_);
+
+	    // The Animator may be restarted so the frame number can go backwards.
+	    position_ = (int) (loop_ ? Math.floorMod (next, (long) frames_) :
+			       Math.max (0, Math.min (next, frames_ - 1)));
+	}
+
+	started_ = true;
+	last_ = frame;
+
+	show (strip, position_);
+    }
+
+    /**
+     * Draw a specific frame.
+     * @param strip Where to draw it. It must be the size of the frames.
+     * @param frame The frame.
+     */
+    public void show (WS2811 strip, int frame)
+    {
+	if (frame < 0 || frame >= frames_ || strip.getWidth () * strip.getHeight () != pixels_)
+	    throw new IllegalArgumentException ("Invalid parameter to FramePlayer.show");
+
+	int at = FrameSequence.HEADER_LENGTH + frame * FrameSequence.BYTES_PER_PIXEL * pixels_;
+
+	for (int i = 0; i < pixels_; ++i, at += 3)
+	    strip.setIndex (i,
+			    ((data_.get (at) & 0xff) << 16) |
+			    ((data_.get (at + 1) & 0xff) << 8) |
+			    (data_.get (at + 2) & 0xff));
+    }
+
+    /**
+     * Close the file.
+     * @throws IOException If it goes wrong.
+     */
+    @Override
+    public void close () throws IOException
+    {
+	channel_.close ();
+    }
+
+    /** The file. */
+    private final FileChannel channel_;
+    /** The mapped file. */
+    private final MappedByteBuffer data_;
+    /** The number of pixels in a frame. */
+    private final int pixels_;
+    /** The frame rate. */
+    private final float fps_;
+    /** The number of frames. */
+    private final int frames_;
+    /** Do we go back to the start at the end? */
+    private final boolean loop_;
+    /** The frame to show next. */
+    private int position_;
+    /** Have we shown anything yet? */
+    private boolean started_;
+    /** The last Animator frame number we saw. */
+    private long last_;
+}
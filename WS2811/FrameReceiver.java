@@ -0,0 +1,297 @@
+/*
+ * Copyright (C) 2016 Jim Darby.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+import java.io.IOException;
+
+import java.net.InetSocketAddress;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.DatagramChannel;
+
+import java.util.Arrays;
+
+/**
+ * Receive frames over UDP and show them on a WS2811. Each frame is sent as
+ * one or more data packets followed by a sync packet that tells us to show
+ * it. All values are big-endian.
+ *
+ * <pre>
+ *  0  2 bytes  magic, 0x5753 ("WS")
+ *  2  1 byte   type: 0 for data, 1 for sync
+ *  3  1 byte   reserved, 0
+ *  4  4 bytes  frame sequence number
+ *  8  4 bytes  row-major index of the first pixel (data only)
+ * 12  2 bytes  number of pixels (data only)
+ * 14  3 bytes  per pixel: red, green and blue (data only)
+ * </pre>
+ *
+ * Pixels are decoded straight from the packet into the WS2811 frame through
+ * its mapping. A data packet for a newer sequence number starts a new frame;
+ * packets for older ones are dropped. The sync packet for the current frame
+ * shows it, but only if every pixel of it has arrived so a lost packet never
+ * shows a mix of old and new pixels. Packets go into a single reused buffer so
+ * nothing is allocated per packet.
+ * 
+ * @author Jim Darby
+ */
+
+public class FrameReceiver extends Thread
+{
+    /**
+     * Create a receiver. It needs to be started as usual.
+     * @param strip The strip to show frames on.
+     * @param port The UDP port to listen on.
+     * @throws IOException If the port can't be opened.
+     */
+    public FrameReceiver (WS2811 strip, int port) throws IOException
+    {
+	super ("WS2811 receiver");
+
+	strip_ = strip;
+	pixels_ = strip.getWidth () * strip.getHeight ();
+	channel_ = DatagramChannel.open ();
+	channel_.bind (new InetSocketAddress (port));
+	packet_ = ByteBuffer.allocateDirect (MAX_PACKET);
+	received_ = new long[(pixels_ + 63) >>> 6];
+	filled_ = 0;
+	active_ = false;
+	frames_ = 0;
+	dropped_ = 0;
+	incomplete_ = 0;
+	malformed_ = 0;
+    }
+
+    /**
+     * Obtain the port we're listening on. Useful if we were asked for port 0.
+     * @return The port.
+     * @throws IOException If it can't be found.
+     */
+    public int getPort () throws IOException
+    {
+	return ((InetSocketAddress) channel_.getLocalAddress ()).getPort ();
+    }
+
+    /**
+     * Stop receiving and wait for the thread to finish.
+     */
+    public void shutdown ()
+    {
+	try {
+	    channel_.close ();
+	    join ();
+	}
+
+	catch (IOException e) {
+	    // We're going anyway.
+	}
+
+	catch (InterruptedException e) {
+	    Thread.currentThread ().interrupt ();
+	}
+    }
+
+    /**
+     * The main loop: receive and handle packets until closed.
+     */
+    @Override
+    public void run ()
+    {
+	try {
+	    while (true) {
+		packet_.clear ();
+		channel_.receive (packet_);
+		packet_.flip ();
+
+		// A bad packet must not take the receiver down with it.
+		try {
+		    handle (packet_);
+		}
+
+		catch (RuntimeException e) {
+		    malformed_ += 1;
+		}
+	    }
+	}
+
+	catch (ClosedChannelException e) {
+	    // We've been shut down.
+	}
+
+	catch (IOException e) {
+	    System.err.println ("FrameReceiver: " + e.getMessage ());
+	}
+    }
+
+    /**
+     * Handle a single packet.
+     * @param packet The packet.
+     */
+    private void handle (ByteBuffer packet)
+    {
+	if (packet.remaining () < SYNC_LENGTH || packet.getShort (0) != MAGIC) {
+	    malformed_ += 1;
+	    return;
+	}
+
+	final int type = packet.get (2);
+	final int sequence = packet.getInt (4);
+
+	if (type == TYPE_SYNC) {
+	    if (active_ && sequence == current_) {
+		// Only show it if nothing went missing.
+		if (filled_ == pixels_) {
+		    strip_.show ();
+		    frames_ += 1;
+		}
+		else
+		    incomplete_ += 1;
+
+		active_ = false;
+	    }
+	    else
+		dropped_ += 1;
+
+	    return;
+	}
+
+	if (type != TYPE_DATA || packet.remaining () < HEADER_LENGTH) {
+	    malformed_ += 1;
+	    return;
+	}
+
+	final int start = packet.getInt (8);
+	final int count = packet.getShort (12) & 0xffff;
+
+	if (start < 0 || count > pixels_ - start || packet.remaining () < HEADER_LENGTH + 3 * count) {
+	    malformed_ += 1;
+	    return;
+	}
+
+	// Is this for the frame we're building, a new one or is it stale?
+	if (!active_ || sequence != current_) {
+	    if (started_ && sequence - current_ <= 0) {
+		dropped_ += 1;
+		return;
+	    }
+
+	    // A new frame. If we were building one it never got synced.
+	    if (active_)
+		incomplete_ += 1;
+
+	    current_ = sequence;
+	    active_ = true;
+	    started_ = true;
+	    Arrays.fill (received_, 0);
+	    filled_ = 0;
+	}
+
+	for (int i = 0, at = HEADER_LENGTH; i < count; ++i, at += 3) {
+	    final int index = start + i;
+	    final long bit = 1L << index;
+
+	    strip_.setIndex (index,
+			     ((packet.get (at) & 0xff) << 16) |
+			     ((packet.get (at + 1) & 0xff) << 8) |
+			     (packet.get (at + 2) & 0xff));
+
+	    // Count each pixel once even if a packet turns up twice.
+	    if ((received_[index >>> 6] & bit) == 0) {
+		received_[index >>> 6] |= bit;
+		filled_ += 1;
+	    }
+	}
+    }
+
+    /**
+     * Obtain the number of frames shown.
+     * @return The count.
+     */
+    public long getFrames ()
+    {
+	return frames_;
+    }
+
+    /**
+     * Obtain the number of stale packets dropped.
+     * @return The count.
+     */
+    public long getDropped ()
+    {
+	return dropped_;
+    }
+
+    /**
+     * Obtain the number of frames that were started but never synced or were
+     * synced with pixels missing.
+     * @return The count.
+     */
+    public long getIncomplete ()
+    {
+	return incomplete_;
+    }
+
+    /**
+     * Obtain the number of packets that made no sense.
+     * @return The count.
+     */
+    public long getMalformed ()
+    {
+	return malformed_;
+    }
+
+    /** The magic number at the start of every packet. */
+    public static final short MAGIC = 0x5753;
+    /** The type of a data packet. */
+    public static final byte TYPE_DATA = 0;
+    /** The type of a sync packet. */
+    public static final byte TYPE_SYNC = 1;
+    /** The length of a sync packet. */
+    public static final int SYNC_LENGTH = 8;
+    /** The length of a data packet header. */
+    public static final int HEADER_LENGTH = 14;
+    /** The largest packet we accept. */
+    public static final int MAX_PACKET = 65536;
+
+    /** The strip we show frames on. */
+    private final WS2811 strip_;
+    /** The number of pixels in a frame. */
+    private final int pixels_;
+    /** Where packets come from. */
+    private final DatagramChannel channel_;
+    /** The single buffer every packet is received into. */
+    private final ByteBuffer packet_;
+    /** One bit per pixel set if it has arrived for the current frame. */
+    private final long[] received_;
+    /** The number of bits set in received_. */
+    private int filled_;
+    /** Are we building a frame? */
+    private boolean active_;
+    /** Have we ever seen a frame? */
+    private boolean started_;
+    /** The sequence number of the frame we're building or last showed. */
+    private int current_;
+    /** The number of frames shown. */
+    private volatile long frames_;
+    /** The number of stale packets. */
+    private volatile long dropped_;
+    /** The number of frames never synced or synced with pixels missing. */
+    private volatile long incomplete_;
+    /** The number of bad packets. */
+    private volatile long malformed_;
+}
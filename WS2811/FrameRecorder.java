@@ -0,0 +1,159 @@
+/*
+ * Copyright (C) 2016 Jim Darby.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+import java.io.IOException;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Record frames from a WS2811 into a file that FramePlayer can play back. See
+ * FrameSequence for the format.
+ * 
+ * @author Jim Darby
+ */
+
+public class FrameRecorder implements AutoCloseable
+{
+    /**
+     * Create a recorder. Any existing file is replaced.
+     * @param file The file to write.
+     * @param width The width of the frames.
+     * @param height The height of the frames.
+     * @param fps The frame rate to play back at.
+     * @throws IOException If the file can't be created.
+     */
+    public FrameRecorder (String file, int width, int height, float fps) throws IOException
+    {
+	if (width <= 0 || height <= 0 || !(fps > 0))
+	    throw new IllegalArgumentException ("Invalid parameter to FrameRecorder");
+
+	pixels_ = width * height;
+	frame_ = new int[pixels_];
+	buffer_ = ByteBuffer.allocateDirect (Math.max (FrameSequence.HEADER_LENGTH, FrameSequence.BYTES_PER_PIXEL * pixels_));
+	frames_ = 0;
+	channel_ = FileChannel.open (Paths.get (file),
+				     StandardOpenOption.CREATE,
+				     StandardOpenOption.TRUNCATE_EXISTING,
+				     StandardOpenOption.WRITE);
+
+	buffer_.clear ();
+	buffer_.putInt (FrameSequence.MAGIC);
+	buffer_.putShort (FrameSequence.VERSION);
+	buffer_.putShort (FrameSequence.BYTES_PER_PIXEL);
+	buffer_.putInt (pixels_);
+	buffer_.putFloat (fps);
+	buffer_.putInt (0);
+	buffer_.flip ();
+	write ();
+    }
+
+    /**
+     * Record the current frame of a strip.
+     * @param strip The strip. It must be the size we were created with.
+     * @throws IOException If it can't be written.
+     */
+    public void record (WS2811 strip) throws IOException
+    {
+	if (strip.getWidth () * strip.getHeight () != pixels_)
+	    throw new IllegalArgumentException ("WS2811 size does not match FrameRecorder");
+
+	strip.getPixels (frame_);
+	record (frame_);
+    }
+
+    /**
+     * Record a frame.
+     * @param frame The frame, row-major values of 0xRRGGBB.
+     * @throws IOException If it can't be written.
+     */
+    public void record (int[] frame) throws IOException
+    {
+	if (frame.length < pixels_)
+	    throw new IllegalArgumentException ("Invalid parameter to FrameRecorder.record");
+
+	buffer_.clear ();
+
+	for (int i = 0; i < pixels_; ++i) {
+	    final int value = frame[i];
+
+	    buffer_.put ((byte) (value >> 16));
+	    buffer_.put ((byte) (value >> 8));
+	    buffer_.put ((byte) value);
+	}
+
+	buffer_.flip ();
+	write ();
+	frames_ += 1;
+    }
+
+    /**
+     * Obtain the number of frames recorded.
+     * @return The count.
+     */
+    public int getFrames ()
+    {
+	return frames_;
+    }
+
+    /**
+     * Finish the file off and close it.
+     * @throws IOException If it can't be written.
+     */
+    @Override
+    public void close () throws IOException
+    {
+	if (!channel_.isOpen ())
+	    return;
+
+	try {
+	    buffer_.clear ();
+	    buffer_.putInt (frames_);
+	    buffer_.flip ();
+	    channel_.write (buffer_, FrameSequence.FRAMES_AT);
+	}
+
+	finally {
+	    channel_.close ();
+	}
+    }
+
+    /**
+     * Write out the whole buffer.
+     * @throws IOException If it can't be written.
+     */
+    private void write () throws IOException
+    {
+	while (buffer_.hasRemaining ())
+	    channel_.write (buffer_);
+    }
+
+    /** The number of pixels in a frame. */
+    private final int pixels_;
+    /** Where we collect frames from a strip. */
+    private final int[] frame_;
+    /** The buffer we write from. */
+    private final ByteBuffer buffer_;
+    /** The file. */
+    private final FileChannel channel_;
+    /** The number of frames written. */
+    private int frames_;
+}
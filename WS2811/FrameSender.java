@@ -0,0 +1,115 @@
+/*
+ * Copyright (C) 2016 Jim Darby.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+import java.io.IOException;
+
+import java.net.InetSocketAddress;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+
+/**
+ * Send frames to a FrameReceiver. Each frame is split into data packets of a
+ * size that fits a normal network packet and then synced. This is mostly for
+ * testing over the loopback interface but works to any host.
+ * 
+ * @author Jim Darby
+ */
+
+public class FrameSender implements AutoCloseable
+{
+    /**
+     * Create a sender.
+     * @param host The host to send to.
+     * @param port The port to send to.
+     * @throws IOException If it can't be set up.
+     */
+    public FrameSender (String host, int port) throws IOException
+    {
+	channel_ = DatagramChannel.open ();
+	channel_.connect (new InetSocketAddress (host, port));
+	packet_ = ByteBuffer.allocateDirect (FrameReceiver.HEADER_LENGTH + 3 * PIXELS_PER_PACKET);
+	sequence_ = 0;
+    }
+
+    /**
+     * Send a frame and sync it.
+     * @param frame The frame, row-major values of 0xRRGGBB.
+     * @throws IOException If it can't be sent.
+     */
+    public void send (int[] frame) throws IOException
+    {
+	sequence_ += 1;
+
+	for (int start = 0; start < frame.length; start += PIXELS_PER_PACKET) {
+	    final int count = Math.min (PIXELS_PER_PACKET, frame.length - start);
+
+	    header (FrameReceiver.TYPE_DATA);
+	    packet_.putInt (start);
+	    packet_.putShort ((short) count);
+
+	    for (int i = start; i < start + count; ++i) {
+		final int value = frame[i];
+
+		packet_.put ((byte) (value >> 16));
+		packet_.put ((byte) (value >> 8));
+		packet_.put ((byte) value);
+	    }
+
+	    packet_.flip ();
+	    channel_.write (packet_);
+	}
+
+	header (FrameReceiver.TYPE_SYNC);
+	packet_.flip ();
+	channel_.write (packet_);
+    }
+
+    /**
+     * Close the sender.
+     * @throws IOException If it goes wrong.
+     */
+    @Override
+    public void close () throws IOException
+    {
+	channel_.close ();
+    }
+
+    /**
+     * Start a packet.
+     * @param type The packet type.
+     */
+    private void header (byte type)
+    {
+	packet_.clear ();
+	packet_.putShort (FrameReceiver.MAGIC);
+	packet_.put (type);
+	packet_.put ((byte) 0);
+	packet_.putInt (sequence_);
+    }
+
+    /** The most pixels we put in a packet so it fits in a 1500 byte MTU. */
+    public static final int PIXELS_PER_PACKET = 480;
+
+    /** Where we send to. */
+    private final DatagramChannel channel_;
+    /** The packet we reuse. */
+    private final ByteBuffer packet_;
+    /** The sequence number of the last frame. */
+    private int sequence_;
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright (C) 2016 Jim Darby.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+/**
+ * The format of a file of precomputed frames, as written by FrameRecorder and
+ * played by FramePlayer. All values are big-endian.
+ *
+ * <pre>
+ *  0  4 bytes  magic, 0x57534551 ("WSEQ")
+ *  4  2 bytes  version, 1
+ *  6  2 bytes  bytes per pixel, 3
+ *  8  4 bytes  pixels per frame, in row-major order
+ * 12  4 bytes  frames per second, as a float
+ * 16  4 bytes  number of frames
+ * 20           the frames, red, green and blue for each pixel
+ * </pre>
+ * 
+ * @author Jim Darby
+ */
+
+final class FrameSequence
+{
+    /** Nobody makes one of these. */
+    private FrameSequence ()
+    {
+    }
+
+    /** The magic number at the start of the file. */
+    public static final int MAGIC = 0x57534551;
+    /** The version we read and write. */
+    public static final short VERSION = 1;
+    /** The bytes for each pixel. */
+    public static final short BYTES_PER_PIXEL = 3;
+    /** Where the pixel count is. */
+    public static final int PIXELS_AT = 8;
+    /** Where the frame rate is. */
+    public static final int FPS_AT = 12;
+    /** Where the frame count is. */
+    public static final int FRAMES_AT = 16;
+    /** The length of the header. */
+    public static final int HEADER_LENGTH = 20;
+}
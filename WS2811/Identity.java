@@ -66,6 +66,16 @@ public class Identity extends Mapping
 	return result;
     }
 
+    /**
+     * Perform this stage of the mapping on a packed co-ordinate.
+     * @param packed The packed point.
+     * @return The packed mapped point.
+     */
+    protected int transform (int packed)
+    {
+	return packed;
+    }
+
     /**
      * Return a string description of the mapping.
      * @return The description.
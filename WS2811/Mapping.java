@@ -123,6 +123,99 @@ abstract class Mapping
      * @return The mapped value..
      */
     abstract public Point map (Point p);
+
+    /**
+     * Abstract method to perform just this stage of the mapping on a packed
+     * co-ordinate (see pack). No validation is done and nothing is allocated
+     * so this is only for use on chains that have already been checked.
+     * @param packed The packed input co-ordinate.
+     * @return The packed output co-ordinate.
+     */
+    abstract protected int transform (int packed);
+
+    /**
+     * Perform the whole mapping chain on a packed co-ordinate. This is the
+     * allocation free equivalent of map with none of the per-stage checks.
+     * @param packed The packed input co-ordinate.
+     * @return The packed mapped co-ordinate.
+     */
+    public final int mapPacked (int packed)
+    {
+        // If there is someone before us then run their mapping.
+	if (before_ != null)
+	    packed = before_.mapPacked (packed);
+
+	return transform (packed);
+    }
+
+    /**
+     * Compile the whole chain into a flat lookup table. The table is indexed
+     * by x + width * y of the input to the chain and holds x + width * y of
+     * the output of the chain. All the validation happens here, once.
+     * @return The lookup table.
+     */
+    public int[] compile ()
+    {
+	final Point in = getOriginalMax ();
+
+	if (in.getX () > PACK_MAX || in.getY () > PACK_MAX ||
+		outMax_.getX () > PACK_MAX || outMax_.getY () > PACK_MAX)
+	    throw new IllegalArgumentException ("Mapping too large to compile: " + this);
+
+	final int in_width = in.getX () + 1;
+	final int in_height = in.getY () + 1;
+	final int out_max_x = outMax_.getX ();
+	final int out_max_y = outMax_.getY ();
+	final int out_width = out_max_x + 1;
+	final int[] result = new int[in_width * in_height];
+
+	for (int y = 0; y < in_height; ++y)
+	    for (int x = 0; x < in_width; ++x) {
+		final int p = mapPacked (pack (x, y));
+		final int px = unpackX (p);
+		final int py = unpackY (p);
+
+		// Check the output is valid, this is the only check we do.
+		if (px > out_max_x || py > out_max_y)
+		    throw new IllegalArgumentException ("Output co-ordinate (" + px + ',' + py + ") outside " + outMax_);
+
+		result[x + in_width * y] = px + out_width * py;
+	    }
+
+	return result;
+    }
+
+    /**
+     * Pack an x and y co-ordinate into a single int. Both must lie in the
+     * range 0 to PACK_MAX.
+     * @param x The x co-ordinate.
+     * @param y The y co-ordinate.
+     * @return The packed form.
+     */
+    public static int pack (int x, int y)
+    {
+	return (x << 16) | y;
+    }
+
+    /**
+     * Extract the x co-ordinate from a packed value.
+     * @param packed The packed value.
+     * @return The x co-ordinate.
+     */
+    public static int unpackX (int packed)
+    {
+	return packed >>> 16;
+    }
+
+    /**
+     * Extract the y co-ordinate from a packed value.
+     * @param packed The packed value.
+     * @return The y co-ordinate.
+     */
+    public static int unpackY (int packed)
+    {
+	return packed & PACK_MAX;
+    }
     
     /**
      * Abstract method to turn the mapping into a string form.
@@ -130,6 +223,9 @@ abstract class Mapping
      */
     abstract public String toString ();
 
+    /** The largest co-ordinate that can be packed. */
+    public static final int PACK_MAX = 0xffff;
+
     /** The input maxima. */
     protected final Point inMax_;
     /** The output maxima. */
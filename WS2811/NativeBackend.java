@@ -0,0 +1,110 @@
+/*
+ * Copyright (C) 2016 Jim Darby.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+
+/**
+ * The backend that drives a real string through the native library.
+ * 
+ * @author Jim Darby
+ */
+
+public class NativeBackend implements WS2811Backend
+{
+    /**
+     * Initialise the native library.
+     * @param type The type of the strings.
+     * @param length0 The number of units on channel 0.
+     * @param length1 The number of units on channel 1, may be zero.
+     * @return If it worked.
+     */
+    @Override
+    public boolean init (int type, int length0, int length1)
+    {
+	return (length1 == 0) ?
+	    WS2811Raw.ws2811_init (type, length0) :
+	    WS2811Raw.ws2811_init_channels (type, length0, length1);
+    }
+
+    /**
+     * Set the brightness level.
+     * @param level The scaling in the range 0 to 255.
+     * @return If it worked.
+     */
+    @Override
+    public boolean brightness (int level)
+    {
+	return WS2811Raw.ws2811_brightness (level);
+    }
+
+    /**
+     * Obtain a channel's native LED array so we can write straight into it.
+     * @param channel The channel, 0 or 1.
+     * @return The buffer or null if not available.
+     */
+    @Override
+    public IntBuffer buffer (int channel)
+    {
+	final ByteBuffer raw = WS2811Raw.ws2811_buffer (channel);
+
+	return (raw == null) ? null : raw.order (ByteOrder.nativeOrder ()).asIntBuffer ();
+    }
+
+    /**
+     * Send an array to the string.
+     * @param data The data.
+     * @return If it worked.
+     */
+    @Override
+    public boolean update (int[] data)
+    {
+	return WS2811Raw.ws2811_update (data);
+    }
+
+    /**
+     * Render the native LED arrays.
+     * @return If it worked.
+     */
+    @Override
+    public boolean render ()
+    {
+	return WS2811Raw.ws2811_render ();
+    }
+
+    /**
+     * Wait for the DMA to complete.
+     * @return If it worked.
+     */
+    @Override
+    public boolean waitDone ()
+    {
+	return WS2811Raw.ws2811_wait ();
+    }
+
+    /**
+     * Shut the native library down.
+     * @return If it worked.
+     */
+    @Override
+    public boolean close ()
+    {
+	return WS2811Raw.ws2811_close ();
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright (C) 2016 Jim Darby.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+/**
+ * A model of how much current a string draws and a limit to keep it under.
+ * Each unit draws a fixed idle current plus, for each channel, a current in
+ * proportion to its value and the brightness. The estimate is made from the
+ * total of each channel over the whole frame, which WS2811 keeps up to date
+ * as pixels change, so it costs nothing per frame.
+ *
+ * The totals are of the values after colour correction, as that is what the
+ * string actually sees.
+ * 
+ * @author Jim Darby
+ */
+
+public class PowerBudget
+{
+    /**
+     * Create a budget with typical WS2812 figures: 20mA per channel at full
+     * and 1mA idle per unit.
+     * @param limit The most current to draw, in mA.
+     */
+    public PowerBudget (double limit)
+    {
+	this (limit, 20, 20, 20, 1);
+    }
+
+    /**
+     * Create a budget.
+     * @param limit The most current to draw, in mA.
+     * @param red The current for a red channel at full, in mA.
+     * @param green The current for a green channel at full, in mA.
+     * @param blue The current for a blue channel at full, in mA.
+     * @param idle The current each unit draws when off, in mA.
+     */
+    public PowerBudget (double limit, double red, double green, double blue, double idle)
+    {
+	if (!(limit > 0) || red < 0 || green < 0 || blue < 0 || idle < 0)
+	    throw new IllegalArgumentException ("Invalid parameter to PowerBudget");
+
+	limit_ = limit;
+	red_ = red / 255;
+	green_ = green / 255;
+	blue_ = blue / 255;
+	idle_ = idle;
+    }
+
+    /**
+     * Estimate the current drawn.
+     * @param red The total of the red channel over the frame.
+     * @param green The total of the green channel over the frame.
+     * @param blue The total of the blue channel over the frame.
+     * @param leds The number of units.
+     * @param level The brightness level, 0 to 255.
+     * @return The current in mA.
+     */
+    public double estimate (long red, long green, long blue, int leds, int level)
+    {
+	return idle_ * leds + variable (red, green, blue) * (level + 1) / 256;
+    }
+
+    /**
+     * Work out the brightness level that keeps us within the limit.
+     * @param red The total of the red channel over the frame.
+     * @param green The total of the green channel over the frame.
+     * @param blue The total of the blue channel over the frame.
+     * @param leds The number of units.
+     * @param level The brightness level we'd like, 0 to 255.
+     * @return The brightness level to use, no more than level.
+     */
+    public int limit (long red, long green, long blue, int leds, int level)
+    {
+	final double variable = variable (red, green, blue);
+	final double spare = limit_ - idle_ * leds;
+
+	// Fine as it is?
+	if (variable * (level + 1) / 256 <= spare)
+	    return level;
+
+	return Math.max (0, Math.min (level, (int) Math.floor (256 * spare / variable) - 1));
+    }
+
+    /**
+     * Obtain the limit.
+     * @return The limit in mA.
+     */
+    public double getLimit ()
+    {
+	return limit_;
+    }
+
+    /**
+     * Work out the current that depends on the values at full brightness.
+     * @param red The total of the red channel.
+     * @param green The total of the green channel.
+     * @param blue The total of the blue channel.
+     * @return The current in mA.
+     */
+    private double variable (long red, long green, long blue)
+    {
+	return red * red_ + green * green_ + blue * blue_;
+    }
+
+    /** The limit in mA. */
+    private final double limit_;
+    /** The red current per step in mA. */
+    private final double red_;
+    /** The green current per step in mA. */
+    private final double green_;
+    /** The blue current per step in mA. */
+    private final double blue_;
+    /** The idle current per unit in mA. */
+    private final double idle_;
+}
@@ -0,0 +1,233 @@
+/*
+ * Copyright (C) 2016 Jim Darby.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+/**
+ * A background thread that sends frames to the string. The application draws
+ * into its own (back) buffer and submits it; we swap it with our front buffer
+ * and hand the old front back for the next frame, so nothing is copied. The
+ * thread swaps the front buffer with the one it last rendered, then renders
+ * it and waits for the DMA to complete without holding the lock, so the
+ * application can submit the next frame meanwhile. As the thread takes each
+ * frame before the next is accepted the buffer handed back always holds the
+ * frame submitted two before.
+ *
+ * At most one frame is ever queued. If the application submits faster than
+ * the string can take them it waits for the previous one to be picked up.
+ *
+ * While the strip is dithering the last frame is sent again whenever there is
+ * nothing new so the dithering keeps going.
+ * 
+ * @author Jim Darby
+ */
+
+class RenderThread extends Thread
+{
+    /**
+     * Create the thread. It needs to be started as usual.
+     * @param strip The WS2811 we render for.
+     * @param leds The number of units in a frame.
+     */
+    public RenderThread (WS2811 strip, int leds)
+    {
+	super ("WS2811 render");
+
+	strip_ = strip;
+	front_ = new int[leds];
+	current_ = new int[leds];
+	leds_ = leds;
+	level_ = 0;
+	pending_ = false;
+	busy_ = false;
+	running_ = true;
+	rendered_ = 0;
+
+	// Don't hold the JVM up just because the display is running.
+	setDaemon (true);
+    }
+
+    /**
+     * Submit a frame. This only waits if the previous frame has not yet been
+     * picked up by the thread.
+     * @param back The frame to send. We keep it until the next submit.
+     * @param level The brightness level to send it at.
+     * @return The buffer to draw the next frame in. It holds the frame
+     * submitted two before this one, or is back itself if the frame was
+     * dropped.
+     */
+    public synchronized int[] submit (int[] back, int level)
+    {
+	if (back.length != leds_)
+	    throw new IllegalArgumentException ("Invalid parameter to RenderThread.submit");
+
+	try {
+	    // Wait for the previous frame to be taken.
+	    while (pending_ && running_)
+		wait ();
+	}
+
+	catch (InterruptedException e) {
+	    // Drop the frame but let the caller know.
+	    Thread.currentThread ().interrupt ();
+	    return back;
+	}
+
+	if (!running_)
+	    return back;
+
+	// The thread only looks at front_ while holding the lock and has
+	// taken the last frame so it's free to swap.
+	final int[] previous = front_;
+
+	front_ = back;
+	level_ = level;
+	pending_ = true;
+	notifyAll ();
+
+	return previous;
+    }
+
+    /**
+     * Wait until everything submitted has been rendered and the DMA has
+     * completed.
+     */
+    public synchronized void flush ()
+    {
+	try {
+	    while ((pending_ || busy_) && isAlive ())
+		wait ();
+	}
+
+	catch (InterruptedException e) {
+	    Thread.currentThread ().interrupt ();
+	}
+    }
+
+    /**
+     * Stop the thread once any pending frame has gone out and wait for it to
+     * finish.
+     */
+    public void shutdown ()
+    {
+	synchronized (this) {
+	    running_ = false;
+	    notifyAll ();
+	}
+
+	try {
+	    join ();
+	}
+
+	catch (InterruptedException e) {
+	    Thread.currentThread ().interrupt ();
+	}
+    }
+
+    /**
+     * Wake the thread up to look at the strip's state again.
+     */
+    public synchronized void wake ()
+    {
+	notifyAll ();
+    }
+
+    /**
+     * Obtain the number of frames that have completed DMA.
+     * @return The count.
+     */
+    public synchronized long getRendered ()
+    {
+	return rendered_;
+    }
+
+    /**
+     * The thread's main loop. Wait for a frame, render it and wait for the
+     * DMA to finish.
+     */
+    @Override
+    public void run ()
+    {
+	int level = 0;
+
+	while (true) {
+	    synchronized (this) {
+		try {
+		    while (!pending_ && running_ && !strip_.isDithering ())
+			wait ();
+		}
+
+		catch (InterruptedException e) {
+		    return;
+		}
+
+		// Only stop once the last frame has gone.
+		if (!pending_ && !running_)
+		    break;
+
+		// Take the new frame, if there is one, and leave the one we
+		// last rendered for the next submit. Otherwise we're just
+		// dithering the last one again.
+		if (pending_) {
+		    final int[] taken = front_;
+
+		    front_ = current_;
+		    current_ = taken;
+		    level = level_;
+		    pending_ = false;
+		}
+
+		busy_ = true;
+		notifyAll ();
+	    }
+
+	    // Getting it into the native buffer and the wire transfer happen
+	    // without holding the lock so the next frame can be submitted
+	    // while they go on.
+	    strip_.render (current_, level);
+	    strip_.waitDone ();
+
+	    synchronized (this) {
+		busy_ = false;
+		rendered_ += 1;
+		notifyAll ();
+	    }
+	}
+
+	synchronized (this) {
+	    notifyAll ();
+	}
+    }
+
+    /** The strip we render for. */
+    private final WS2811 strip_;
+    /** The frame waiting to go to the string. */
+    private int[] front_;
+    /** The frame being or last rendered, only touched by the thread. */
+    private int[] current_;
+    /** The number of units in a frame. */
+    private final int leds_;
+    /** The brightness level for the frame in front_. */
+    private int level_;
+    /** Is there a frame in front_ waiting to be rendered? */
+    private boolean pending_;
+    /** Is the DMA in progress? */
+    private boolean busy_;
+    /** Should we keep going? */
+    private boolean running_;
+    /** The number of frames completely sent. */
+    private long rendered_;
+}
@@ -0,0 +1,36 @@
+/*
+ * Copyright (C) 2016 Jim Darby.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+/**
+ * A per-pixel function used to draw a whole frame, see WS2811.shade. It is
+ * called from several threads at once so it must not have side effects.
+ * 
+ * @author Jim Darby
+ */
+
+public interface Shader
+{
+    /**
+     * Compute the colour of a pixel.
+     * @param x The x co-ordinate.
+     * @param y The y co-ordinate.
+     * @param nanos The time of the frame in nanoseconds.
+     * @return The colour as 0xRRGGBB.
+     */
+    int shade (int x, int y, long nanos);
+}
@@ -0,0 +1,388 @@
+/*
+ * Copyright (C) 2016 Jim Darby.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+import java.awt.image.BufferedImage;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+
+import java.util.concurrent.locks.LockSupport;
+
+import javax.imageio.ImageIO;
+
+/**
+ * A backend that doesn't need a Pi. It keeps the last few frames sent to it,
+ * models how long the DMA would take to send them at 800kHz and can write
+ * frames out as PPM or PNG images. This allows the rest of the code to be
+ * run and timed on an ordinary machine.
+ *
+ * Like the real thing it has two channels that are sent at the same time so a
+ * transfer takes as long as the longer of the two. Frames are recorded as
+ * channel 0 followed by channel 1.
+ * 
+ * @author Jim Darby
+ */
+
+public class SimulatedBackend implements WS2811Backend
+{
+    /**
+     * Create a simulated backend that keeps only the last frame and takes as
+     * long as the real thing.
+     */
+    public SimulatedBackend ()
+    {
+	this (1, true);
+    }
+
+    /**
+     * Create a simulated backend.
+     * @param history How many of the most recent frames to keep.
+     * @param realTime If true transfers take as long as they would on a real
+     * string, otherwise they complete at once (but are still timed).
+     */
+    public SimulatedBackend (int history, boolean realTime)
+    {
+	if (history <= 0)
+	    throw new IllegalArgumentException ("Invalid parameter to SimulatedBackend");
+
+	history_ = history;
+	realTime_ = realTime;
+	inUse_ = false;
+    }
+
+    /**
+     * Initialise the simulation.
+     * @param type The type of the strings.
+     * @param length0 The number of units on channel 0.
+     * @param length1 The number of units on channel 1, may be zero.
+     * @return If it worked.
+     */
+    @Override
+    public synchronized boolean init (int type, int length0, int length1)
+    {
+	if (inUse_ || length0 <= 0 || length1 < 0)
+	    return false;
+
+	type_ = type;
+	length0_ = length0;
+	length1_ = length1;
+	brightness_ = 255;
+	buffer0_ = allocate (length0);
+	buffer1_ = (length1 > 0) ? allocate (length1) : null;
+	frames_ = new int[history_][length0 + length1];
+	count_ = 0;
+	transferNanos_ = Math.max (length0, length1) * NANOS_PER_LED + RESET_NANOS;
+	busyNanos_ = 0;
+	busyUntil_ = System.nanoTime ();
+	inUse_ = true;
+
+	return true;
+    }
+
+    /**
+     * Set the brightness level.
+     * @param level The scaling in the range 0 to 255.
+     * @return If it worked.
+     */
+    @Override
+    public synchronized boolean brightness (int level)
+    {
+	if (!inUse_ || level < 0 || level > 255)
+	    return false;
+
+	brightness_ = level;
+
+	return true;
+    }
+
+    /**
+     * Obtain the buffer we render a channel from.
+     * @param channel The channel, 0 or 1.
+     * @return The buffer, null if not initialised or the channel isn't in
+     * use.
+     */
+    @Override
+    public synchronized IntBuffer buffer (int channel)
+    {
+	if (!inUse_)
+	    return null;
+
+	return (channel == 0) ? buffer0_ : (channel == 1) ? buffer1_ : null;
+    }
+
+    /**
+     * Send an array to the simulated string.
+     * @param data The data.
+     * @return If it worked.
+     */
+    @Override
+    public synchronized boolean update (int[] data)
+    {
+	if (!inUse_ || data.length != length0_ + length1_)
+	    return false;
+
+	buffer0_.clear ();
+	buffer0_.put (data, 0, length0_);
+
+	if (buffer1_ != null) {
+	    buffer1_.clear ();
+	    buffer1_.put (data, length0_, length1_);
+	}
+
+	return render ();
+    }
+
+    /**
+     * Record the current buffer as a frame and start the simulated transfer.
+     * Like the real library we wait for any previous transfer first.
+     * @return If it worked.
+     */
+    @Override
+    public synchronized boolean render ()
+    {
+	if (!inUse_)
+	    return false;
+
+	waitDone ();
+
+	final int[] frame = frames_[(int) (count_ % history_)];
+
+	buffer0_.clear ();
+	buffer0_.get (frame, 0, length0_);
+
+	if (buffer1_ != null) {
+	    buffer1_.clear ();
+	    buffer1_.get (frame, length0_, length1_);
+	}
+
+	count_ += 1;
+
+	busyNanos_ += transferNanos_;
+	busyUntil_ = System.nanoTime () + transferNanos_;
+
+	return true;
+    }
+
+    /**
+     * Wait for the simulated transfer to complete.
+     * @return If it worked.
+     */
+    @Override
+    public boolean waitDone ()
+    {
+	if (realTime_) {
+	    long left;
+
+	    while ((left = busyUntil_ - System.nanoTime ()) > 0)
+		LockSupport.parkNanos (left);
+	}
+
+	return inUse_;
+    }
+
+    /**
+     * Shut the simulation down.
+     * @return If it worked.
+     */
+    @Override
+    public synchronized boolean close ()
+    {
+	final boolean result = inUse_;
+
+	inUse_ = false;
+
+	return result;
+    }
+
+    /**
+     * Obtain the number of frames rendered since initialisation.
+     * @return The count.
+     */
+    public synchronized long getFrameCount ()
+    {
+	return count_;
+    }
+
+    /**
+     * Obtain a recent frame. The array is ours so don't change it and don't
+     * keep it: it will be reused.
+     * @param back How many frames back, 0 for the most recent.
+     * @return The frame in string order, channel 0 followed by channel 1.
+     */
+    public synchronized int[] getFrame (int back)
+    {
+	if (back < 0 || back >= history_ || back >= count_)
+	    throw new IllegalArgumentException ("Invalid parameter to SimulatedBackend.getFrame");
+
+	return frames_[(int) ((count_ - 1 - back) % history_)];
+    }
+
+    /**
+     * Obtain the number of units on a channel.
+     * @param channel The channel, 0 or 1.
+     * @return The number of units.
+     */
+    public synchronized int getLength (int channel)
+    {
+	return (channel == 0) ? length0_ : (channel == 1) ? length1_ : 0;
+    }
+
+    /**
+     * Obtain how long a single transfer takes.
+     * @return The time in nanoseconds.
+     */
+    public synchronized long getTransferNanos ()
+    {
+	return transferNanos_;
+    }
+
+    /**
+     * Obtain the total time the simulated string has spent transferring.
+     * @return The time in nanoseconds.
+     */
+    public synchronized long getBusyNanos ()
+    {
+	return busyNanos_;
+    }
+
+    /**
+     * Obtain the current brightness.
+     * @return The brightness in the range 0 to 255.
+     */
+    public synchronized int getBrightness ()
+    {
+	return brightness_;
+    }
+
+    /**
+     * Obtain the string type we were initialised with.
+     * @return The type.
+     */
+    public synchronized int getType ()
+    {
+	return type_;
+    }
+
+    /**
+     * Write a recent frame to a file as it would appear, i.e. with the
+     * brightness applied. If the name ends in .png a PNG is written, otherwise
+     * a binary PPM. The frame is laid out in string order, width units per
+     * row.
+     * @param file The name of the file.
+     * @param back How many frames back, 0 for the most recent.
+     * @param width The width of the image.
+     * @param height The height of the image.
+     * @throws IOException If the write fails.
+     */
+    public synchronized void dump (String file, int back, int width, int height) throws IOException
+    {
+	if (width <= 0 || height <= 0 || width * height > length0_ + length1_)
+	    throw new IllegalArgumentException ("Invalid parameter to SimulatedBackend.dump");
+
+	final int[] frame = getFrame (back);
+
+	if (file.endsWith (".png")) {
+	    final BufferedImage image = new BufferedImage (width, height, BufferedImage.TYPE_INT_RGB);
+
+	    for (int y = 0; y < height; ++y)
+		for (int x = 0; x < width; ++x)
+		    image.setRGB (x, y, scale (frame[x + width * y]));
+
+	    if (!ImageIO.write (image, "png", new File (file)))
+		throw new IOException ("No PNG writer available");
+	}
+	else
+	    try (OutputStream out = new BufferedOutputStream (new FileOutputStream (file))) {
+		out.write (("P6\n" + width + ' ' + height + "\n255\n").getBytes ("US-ASCII"));
+
+		for (int i = 0; i < width * height; ++i) {
+		    final int value = scale (frame[i]);
+
+		    out.write (value >> 16);
+		    out.write (value >> 8);
+		    out.write (value);
+		}
+	    }
+    }
+
+    /**
+     * Allocate a buffer like the one the library provides.
+     * @param length The number of units.
+     * @return The buffer.
+     */
+    private static IntBuffer allocate (int length)
+    {
+	return ByteBuffer.allocateDirect (length * 4).order (ByteOrder.nativeOrder ()).asIntBuffer ();
+    }
+
+    /**
+     * Apply the brightness to a value the same way the library does.
+     * @param rgb The value as 0xRRGGBB.
+     * @return The scaled value.
+     */
+    private int scale (int rgb)
+    {
+	final int scale = brightness_ + 1;
+	final int r = (((rgb >> 16) & 0xff) * scale) >> 8;
+	final int g = (((rgb >> 8) & 0xff) * scale) >> 8;
+	final int b = ((rgb & 0xff) * scale) >> 8;
+
+	return (r << 16) | (g << 8) | b;
+    }
+
+    /** Time to send one unit: 24 bits at 800kHz. */
+    public static final long NANOS_PER_LED = 24 * 1250;
+    /** Time the line is held low to latch the data. */
+    public static final long RESET_NANOS = 55000;
+
+    /** How many frames we keep. */
+    private final int history_;
+    /** Do transfers take real time? */
+    private final boolean realTime_;
+    /** Have we been initialised? */
+    private volatile boolean inUse_;
+    /** The string type. */
+    private int type_;
+    /** The number of units on channel 0. */
+    private int length0_;
+    /** The number of units on channel 1. */
+    private int length1_;
+    /** The brightness level. */
+    private int brightness_;
+    /** The buffer we render channel 0 from. */
+    private IntBuffer buffer0_;
+    /** The buffer we render channel 1 from, null if not in use. */
+    private IntBuffer buffer1_;
+    /** The most recent frames, used as a ring. */
+    private int[][] frames_;
+    /** The number of frames rendered. */
+    private long count_;
+    /** How long one transfer takes. */
+    private long transferNanos_;
+    /** The total transfer time. */
+    private long busyNanos_;
+    /** When the current transfer completes. */
+    private volatile long busyUntil_;
+}
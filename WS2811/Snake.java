@@ -71,6 +71,18 @@ public class Snake extends Mapping
 	return result;
     }
 
+    /**
+     * Perform this stage of the mapping on a packed co-ordinate.
+     * @param packed The packed point.
+     * @return The packed mapped point.
+     */
+    protected int transform (int packed)
+    {
+	final int y = unpackY (packed);
+
+	return ((y & 1) != 0) ? pack (inMax_.getX () - unpackX (packed), y) : packed;
+    }
+
     /**
      * Return a string description of the mapping.
      * @return The description.
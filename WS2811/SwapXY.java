@@ -68,6 +68,16 @@ public class SwapXY extends Mapping
 	return result; 
     }
 
+    /**
+     * Perform this stage of the mapping on a packed co-ordinate.
+     * @param packed The packed point.
+     * @return The packed mapped point.
+     */
+    protected int transform (int packed)
+    {
+	return pack (unpackY (packed), unpackX (packed));
+    }
+
     /**
      * Return a string description of the mapping.
      * @return The description.
@@ -0,0 +1,74 @@
+/*
+ * Copyright (C) 2016 Jim Darby.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+/**
+ * Temporal dithering. Colour correction works out each channel to 16 bits
+ * (8.8 fixed point) but the string only takes 8. Rather than throwing the
+ * fraction away we carry it over to the next frame for the same unit so over
+ * a few frames the average is right. At a high refresh rate this gives smooth
+ * fades and no banding at low brightness.
+ * 
+ * @author Jim Darby
+ */
+
+class TemporalDither
+{
+    /**
+     * Create the dithering state.
+     * @param leds The number of units.
+     */
+    public TemporalDither (int leds)
+    {
+	error_ = new int[3 * leds];
+    }
+
+    /**
+     * Correct and dither a frame in one pass.
+     * @param correction The colour correction.
+     * @param from The frame, 0xRRGGBB values.
+     * @param to Where to put the result.
+     * @param length The number of units.
+     */
+    public void apply (ColourCorrection correction, int[] from, int[] to, int length)
+    {
+	final int[] red = correction.red16_;
+	final int[] green = correction.green16_;
+	final int[] blue = correction.blue16_;
+	final int[] error = error_;
+
+	for (int i = 0, e = 0; i < length; ++i, e += 3) {
+	    final int value = from[i];
+	    final int r = red[(value >>> 16) & 0xff] + error[e];
+	    final int g = green[(value >>> 8) & 0xff] + error[e + 1];
+	    final int b = blue[value & 0xff] + error[e + 2];
+	    final int r8 = Math.min (255, r >> 8);
+	    final int g8 = Math.min (255, g >> 8);
+	    final int b8 = Math.min (255, b >> 8);
+
+	    // Carry what we couldn't show to the next frame.
+	    error[e] = r - (r8 << 8);
+	    error[e + 1] = g - (g8 << 8);
+	    error[e + 2] = b - (b8 << 8);
+
+	    to[i] = (r8 << 16) | (g8 << 8) | b8;
+	}
+    }
+
+    /** The error carried for each channel of each unit. */
+    private final int[] error_;
+}
@@ -0,0 +1,138 @@
+/*
+ * Copyright (C) 2016 Jim Darby.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+import java.util.Arrays;
+
+/**
+ * Scroll a message across a WS2811. The message is drawn once into an
+ * off-screen strip as wide as the text plus a screen width of blank on each
+ * side. Each frame then just copies a screen wide window of it to the strip
+ * so scrolling costs one copy per row rather than drawing text.
+ *
+ * It is an Animation that moves one column per frame, so the Animator's
+ * frame rate sets the scrolling speed.
+ * 
+ * @author Jim Darby
+ */
+
+public class TextScroller implements Animation
+{
+    /**
+     * Create a scroller.
+     * @param width The width of the strip.
+     * @param height The height of the strip.
+     * @param font The font to use.
+     */
+    public TextScroller (int width, int height, BitmapFont font)
+    {
+	if (width <= 0 || height <= 0 || font == null)
+	    throw new IllegalArgumentException ("Invalid parameter to TextScroller");
+
+	width_ = width;
+	height_ = height;
+	font_ = font;
+	setMessage ("", 0, 0);
+    }
+
+    /**
+     * Set the message to scroll. This is where all the drawing happens.
+     * @param text The message.
+     * @param rgb The colour of the text as 0xRRGGBB.
+     * @param background The colour behind the text as 0xRRGGBB.
+     */
+    public synchronized void setMessage (String text, int rgb, int background)
+    {
+	final int text_width = font_.textWidth (text);
+	final int stride = text_width + 2 * width_;
+	final int[] canvas = new int[stride * height_];
+
+	Arrays.fill (canvas, background);
+
+	// Centre the text vertically, clipping it if it's too tall.
+	final int top = (height_ - font_.getHeight ()) / 2;
+
+	for (int i = 0; i < text.length (); ++i) {
+	    final int[] columns = font_.glyph (text.charAt (i));
+	    final int left = width_ + i * (font_.getWidth () + 1);
+
+	    for (int x = 0; x < columns.length; ++x)
+		for (int y = 0; y < font_.getHeight (); ++y)
+		    if ((columns[x] & (1 << y)) != 0 && top + y >= 0 && top + y < height_)
+			canvas[left + x + stride * (top + y)] = rgb;
+	}
+
+	canvas_ = canvas;
+	stride_ = stride;
+	positions_ = text_width + width_;
+	position_ = 0;
+    }
+
+    /**
+     * Draw the window at a given position. Position 0 is blank with the text
+     * about to come in from the right.
+     * @param strip The strip. It must be the size we were created with.
+     * @param position The position, wrapped to the length of the message.
+     */
+    public synchronized void draw (WS2811 strip, int position)
+    {
+	if (strip.getWidth () != width_ || strip.getHeight () != height_)
+	    throw new IllegalArgumentException ("WS2811 size does not match TextScroller");
+
+	final int at = Math.floorMod (position, positions_);
+
+	for (int y = 0; y < height_; ++y)
+	    strip.setRow (y, canvas_, at + stride_ * y);
+    }
+
+    /**
+     * Draw the next frame, moving on one column per Animator frame.
+     * @param strip Where to draw it.
+     * @param frame The Animator's frame number.
+     * @param nanos The time of the frame.
+     */
+    @Override
+    public synchronized void frame (WS2811 strip, long frame, long nanos)
+    {
+	position_ = (int) (frame % positions_);
+	draw (strip, position_);
+    }
+
+    /**
+     * Obtain the number of positions before the message repeats.
+     * @return The count.
+     */
+    public synchronized int getPositions ()
+    {
+	return positions_;
+    }
+
+    /** The width of the strip. */
+    private final int width_;
+    /** The height of the strip. */
+    private final int height_;
+    /** The font. */
+    private final BitmapFont font_;
+    /** The message drawn off-screen, row-major. */
+    private int[] canvas_;
+    /** The width of the off-screen canvas. */
+    private int stride_;
+    /** The number of scroll positions. */
+    private int positions_;
+    /** The position last drawn. */
+    private int position_;
+}
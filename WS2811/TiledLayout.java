@@ -0,0 +1,341 @@
+/*
+ * Copyright (C) 2016 Jim Darby.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+import java.util.Arrays;
+
+/**
+ * A Mapping for a wall made of several identical rectangular panels chained
+ * one after another into a single string. The panels sit in a grid and are
+ * chained along each row of panels in turn, either always left to right or
+ * zigzagging (left to right then right to left). Each panel may be rotated
+ * and may be snake wired.
+ *
+ * The whole layout is worked out once when it is built so mapping a pixel is
+ * a single table lookup. The output is the string as a single row.
+ */
+
+public class TiledLayout extends Mapping
+{
+    /**
+     * How a single panel is mounted.
+     */
+    public static class Panel
+    {
+	/**
+	 * Describe a panel.
+	 * @param rotation How far the panel is turned clockwise from its
+	 * natural orientation: 0, 90, 180 or 270 degrees. Panels turned by 90
+	 * or 270 must be square.
+	 * @param snake True if alternate rows of the panel run backwards.
+	 */
+	public Panel (int rotation, boolean snake)
+	{
+	    if (rotation != 0 && rotation != 90 && rotation != 180 && rotation != 270)
+		throw new IllegalArgumentException ("Invalid rotation for TiledLayout.Panel: " + rotation);
+
+	    rotation_ = rotation;
+	    snake_ = snake;
+	}
+
+	/**
+	 * Obtain the rotation.
+	 * @return The rotation in degrees.
+	 */
+	public int getRotation ()
+	{
+	    return rotation_;
+	}
+
+	/**
+	 * Is the panel snake wired?
+	 * @return True if it is.
+	 */
+	public boolean getSnake ()
+	{
+	    return snake_;
+	}
+
+	/**
+	 * Return a string description of the panel.
+	 * @return The description.
+	 */
+	public String toString ()
+	{
+	    return rotation_ + (snake_ ? "S" : "");
+	}
+
+	/** The rotation in degrees. */
+	private final int rotation_;
+	/** Are alternate rows reversed? */
+	private final boolean snake_;
+    }
+
+    /**
+     * Create a layout.
+     * @param panelWidth The width of each panel.
+     * @param panelHeight The height of each panel.
+     * @param panels The panels, indexed by row then column, as seen from the
+     * front with row 0 at the top.
+     * @param zigzag True if alternate rows of panels are chained right to
+     * left.
+     */
+    public TiledLayout (int panelWidth, int panelHeight, Panel[][] panels, boolean zigzag)
+    {
+	super (inMax (panelWidth, panelHeight, panels), outMax (panelWidth, panelHeight, panels));
+
+	panelWidth_ = panelWidth;
+	panelHeight_ = panelHeight;
+	columns_ = panels[0].length;
+	rows_ = panels.length;
+	zigzag_ = zigzag;
+	table_ = build (panels);
+    }
+
+    /**
+     * Create a layout where every panel is mounted the same way.
+     * @param panelWidth The width of each panel.
+     * @param panelHeight The height of each panel.
+     * @param columns The number of panels across.
+     * @param rows The number of panels down.
+     * @param panel How every panel is mounted.
+     * @param zigzag True if alternate rows of panels are chained right to
+     * left.
+     */
+    public TiledLayout (int panelWidth, int panelHeight, int columns, int rows, Panel panel, boolean zigzag)
+    {
+	this (panelWidth, panelHeight, uniform (columns, rows, panel), zigzag);
+    }
+
+    /**
+     * Perform the mapping.
+     * @param p The point to map.
+     * @return The mapped point.
+     */
+    public Point map (Point p)
+    {
+	// If there is someone before us then run their mapping.
+	if (before_ != null)
+	    p = before_.map (p);
+
+	// Validate the input AFTER any previous mapping.
+	validateIn (p);
+
+	// Perform the mapping. It's all in the table so no need to check it.
+	return new Point (table_[p.getX () + width () * p.getY ()], 0);
+    }
+
+    /**
+     * Perform this stage of the mapping on a packed co-ordinate.
+     * @param packed The packed point.
+     * @return The packed mapped point.
+     */
+    protected int transform (int packed)
+    {
+	return pack (table_[unpackX (packed) + width () * unpackY (packed)], 0);
+    }
+
+    /**
+     * Compile the mapping. We've already done it so just hand over a copy.
+     * @return The lookup table.
+     */
+    public int[] compile ()
+    {
+	return (before_ == null) ? table_.clone () : super.compile ();
+    }
+
+    /**
+     * Return a string description of the mapping.
+     * @return The description.
+     */
+    public String toString ()
+    {
+	return "TiledLayout " + columns_ + 'x' + rows_ + " panels of " + panelWidth_ + 'x' + panelHeight_ +
+	    (zigzag_ ? " zigzag" : "") + " from " + getInMax () + " to " + getOutMax ();
+    }
+
+    /**
+     * Obtain the width of the whole wall.
+     * @return The width.
+     */
+    private int width ()
+    {
+	return panelWidth_ * columns_;
+    }
+
+    /**
+     * Work out where every pixel on the wall lives on the string and check
+     * it's all consistent.
+     * @param panels The panels.
+     * @return The table.
+     */
+    private int[] build (Panel[][] panels)
+    {
+	final int width = width ();
+	final int per_panel = panelWidth_ * panelHeight_;
+	final int[] result = new int[per_panel * columns_ * rows_];
+	final boolean[] used = new boolean[result.length];
+
+	for (int row = 0; row < rows_; ++row)
+	    for (int column = 0; column < columns_; ++column) {
+		final Panel panel = panels[row][column];
+
+		// Where is this panel in the chain?
+		final int along = (zigzag_ && (row & 1) != 0) ? columns_ - 1 - column : column;
+		final int base = per_panel * (columns_ * row + along);
+
+		for (int y = 0; y < panelHeight_; ++y)
+		    for (int x = 0; x < panelWidth_; ++x) {
+			final int index = base + panelIndex (panel, x, y);
+
+			// Paranoia: every unit should be used exactly once.
+			if (used[index])
+			    throw new IllegalArgumentException ("TiledLayout maps two pixels to unit " + index);
+
+			used[index] = true;
+
+			result[panelWidth_ * column + x + width * (panelHeight_ * row + y)] = index;
+		    }
+	    }
+
+	return result;
+    }
+
+    /**
+     * Work out where a pixel is within a single panel.
+     * @param panel The panel.
+     * @param x The x co-ordinate on the panel as seen on the wall.
+     * @param y The y co-ordinate on the panel as seen on the wall.
+     * @return The position along the panel's own string.
+     */
+    private int panelIndex (Panel panel, int x, int y)
+    {
+	// Turn it back into the panel's own co-ordinates.
+	final int px;
+	final int py;
+	final int native_width;
+
+	switch (panel.getRotation ()) {
+	    case 90:
+		px = y;
+		py = panelWidth_ - 1 - x;
+		native_width = panelHeight_;
+		break;
+
+	    case 180:
+		px = panelWidth_ - 1 - x;
+		py = panelHeight_ - 1 - y;
+		native_width = panelWidth_;
+		break;
+
+	    case 270:
+		px = panelHeight_ - 1 - y;
+		py = x;
+		native_width = panelHeight_;
+		break;
+
+	    default:
+		px = x;
+		py = y;
+		native_width = panelWidth_;
+		break;
+	}
+
+	final int sx = (panel.getSnake () && (py & 1) != 0) ? native_width - 1 - px : px;
+
+	return sx + native_width * py;
+    }
+
+    /**
+     * Check the description and work out the input maxima.
+     * @param panelWidth The width of each panel.
+     * @param panelHeight The height of each panel.
+     * @param panels The panels.
+     * @return The maxima.
+     */
+    private static Point inMax (int panelWidth, int panelHeight, Panel[][] panels)
+    {
+	if (panelWidth <= 0 || panelHeight <= 0 || panels == null || panels.length == 0 ||
+		panels[0] == null || panels[0].length == 0)
+	    throw new IllegalArgumentException ("Invalid parameter to TiledLayout");
+
+	for (Panel[] row : panels) {
+	    if (row == null || row.length != panels[0].length)
+		throw new IllegalArgumentException ("TiledLayout panel rows must all be the same length");
+
+	    for (Panel panel : row) {
+		if (panel == null)
+		    throw new IllegalArgumentException ("Missing panel in TiledLayout");
+
+		if ((panel.getRotation () == 90 || panel.getRotation () == 270) && panelWidth != panelHeight)
+		    throw new IllegalArgumentException ("Only square panels may be rotated by 90 or 270 in TiledLayout");
+	    }
+	}
+
+	return new Point (panelWidth * panels[0].length - 1, panelHeight * panels.length - 1);
+    }
+
+    /**
+     * Work out the output maxima: a single row of every unit.
+     * @param panelWidth The width of each panel.
+     * @param panelHeight The height of each panel.
+     * @param panels The panels.
+     * @return The maxima.
+     */
+    private static Point outMax (int panelWidth, int panelHeight, Panel[][] panels)
+    {
+	final long units = ((long) panelWidth) * panelHeight * panels.length * panels[0].length;
+
+	if (units - 1 > PACK_MAX)
+	    throw new IllegalArgumentException ("TiledLayout too large: " + units + " units");
+
+	return new Point ((int) units - 1, 0);
+    }
+
+    /**
+     * Build a grid of identical panels.
+     * @param columns The number of panels across.
+     * @param rows The number of panels down.
+     * @param panel The panel.
+     * @return The grid.
+     */
+    private static Panel[][] uniform (int columns, int rows, Panel panel)
+    {
+	if (columns <= 0 || rows <= 0)
+	    throw new IllegalArgumentException ("Invalid parameter to TiledLayout");
+
+	final Panel[][] result = new Panel[rows][columns];
+
+	for (Panel[] row : result)
+	    Arrays.fill (row, panel);
+
+	return result;
+    }
+
+    /** The width of each panel. */
+    private final int panelWidth_;
+    /** The height of each panel. */
+    private final int panelHeight_;
+    /** The number of panels across. */
+    private final int columns_;
+    /** The number of panels down. */
+    private final int rows_;
+    /** Are alternate rows chained backwards? */
+    private final boolean zigzag_;
+    /** Where each pixel, indexed by x + width * y, is on the string. */
+    private final int[] table_;
+}
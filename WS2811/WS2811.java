@@ -16,16 +16,95 @@
  * <http://www.gnu.org/licenses/>.
  */
 
+import java.nio.IntBuffer;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
 /**
  * Provide a sensible interface to the WS2811 library.
  * 
  * @author Jim Darby
  */
 public class WS2811 {
+    /**
+     * Create a WS2811 that renders synchronously.
+     * @param width The input width.
+     * @param height The input height.
+     * @param map The mapping from input to output co-ordinates.
+     * @param type The type of the string.
+     * @param brightness The brightness in the range 0 to 1.
+     */
     public WS2811 (int width, int height,
 		   Mapping map,
 		   int type,
 		   double brightness)
+    {
+	this (width, height, map, type, brightness, false);
+    }
+
+    /**
+     * Create a WS2811. In asynchronous mode show just hands the frame to a
+     * background thread that sends it and waits for the DMA so the next frame
+     * can be drawn while the last one is on the wire.
+     * @param width The input width.
+     * @param height The input height.
+     * @param map The mapping from input to output co-ordinates.
+     * @param type The type of the string.
+     * @param brightness The brightness in the range 0 to 1.
+     * @param async True to render asynchronously.
+     */
+    public WS2811 (int width, int height,
+		   Mapping map,
+		   int type,
+		   double brightness,
+		   boolean async)
+    {
+	this (width, height, map, type, brightness, async, new NativeBackend ());
+    }
+
+    /**
+     * Create a WS2811 driving a specific backend.
+     * @param width The input width.
+     * @param height The input height.
+     * @param map The mapping from input to output co-ordinates.
+     * @param type The type of the string.
+     * @param brightness The brightness in the range 0 to 1.
+     * @param async True to render asynchronously.
+     * @param backend What actually drives the string.
+     */
+    public WS2811 (int width, int height,
+		   Mapping map,
+		   int type,
+		   double brightness,
+		   boolean async,
+		   WS2811Backend backend)
+    {
+	this (width, height, map, type, brightness, async, backend, 0);
+    }
+
+    /**
+     * Create a WS2811 that uses both channels. The output of the mapping is
+     * treated as a single string and the last units of it go on channel 1.
+     * Both channels are sent at once so splitting a long string in two
+     * halves the time each frame takes.
+     * @param width The input width.
+     * @param height The input height.
+     * @param map The mapping from input to output co-ordinates.
+     * @param type The type of the strings.
+     * @param brightness The brightness in the range 0 to 1.
+     * @param async True to render asynchronously.
+     * @param backend What actually drives the strings.
+     * @param second The number of units on channel 1, zero for none.
+     */
+    public WS2811 (int width, int height,
+		   Mapping map,
+		   int type,
+		   double brightness,
+		   boolean async,
+		   WS2811Backend backend,
+		   int second)
     {
         if (width <= 0 || height <= 0 ||
                 (type != WS2811Raw.WS2811_STRIP_RGB) &&
@@ -34,7 +113,7 @@ public class WS2811 {
                 (type != WS2811Raw.WS2811_STRIP_GBR) &&
                 (type != WS2811Raw.WS2811_STRIP_BRG) &&
                 (type != WS2811Raw.WS2811_STRIP_BGR) ||
-                brightness < 0 || brightness > 1)
+		brightness < 0 || brightness > 1 || backend == null)
             throw new IllegalArgumentException ("Invalid parameter to WS2811");
 
 	i_width_ = width;
@@ -51,46 +130,63 @@ public class WS2811 {
 	// System.out.println ("Output width " + o_width_ + " height " + o_height_ + " limit " + out);
 		
         leds_ = o_width_ * o_height_;
-	map_ = new int[leds_];
         data_ = new int[leds_];
+	commit_ = new int[leds_];
+	dirty_ = new long[(leds_ + 63) >>> 6];
+	last_ = new long[dirty_.length];
+	changed_ = 0;
+	invalid_ = false;
 
-	for (int y = 0; y < i_height_; ++y)
-	    for (int x = 0; x < i_width_; ++x) {
-		final Point p = map.map (new Point (x, y));
+	// Channel 0 must have something on it.
+	if (second < 0 || second >= leds_)
+	    throw new IllegalArgumentException ("Invalid channel 1 length " + second + " for " + leds_ + " units");
 
-		// System.out.println ("Mapped " + x + ',' + y + " to " + p);
-		
-		final int value = p.getX () + o_width_ * p.getY ();
-
-		// System.out.println ("Map " + x + ',' + y + " to " + value + " at " + (x + i_width_ * y));
-		
-		map_[x + i_width_ * y] = value;
-	    }
+	first_ = leds_ - second;
+	second_ = second;
 
-	/* System.out.println ();
+	// The mapping must take exactly our input size.
+	final Point in = map.getOriginalMax ();
 
-	for (int i = 0; i < leds_; ++i) {
-	    if (i != 0)
-		System.out.print (' ');
-	    
-	    System.out.print (map_[i]);
-	}
+	if (in.getX () != max_.getX () || in.getY () != max_.getY ())
+	    throw new IllegalArgumentException ("Mapping input " + in + " does not match WS2811 limit " + max_);
 
-	System.out.println ();
-	*/
+	// Compile the chain once so we never run it again.
+	map_ = map.compile ();
 	
         for (int i = 0; i < leds_; ++i)
             data_[i] = 0;
         
-        WS2811Raw.ws2811_init (type, leds_);
-        WS2811Raw.ws2811_brightness ((int) (brightness * 255));
-        WS2811Raw.ws2811_update (data_);
+	backend_ = backend;
+	backend_.init (type, first_, second_);
+	brightness_ = (int) (brightness * 255);
+	level_ = brightness_;
+	backend_.brightness (level_);
+
+	// Write straight into the backend's buffers if we can.
+	output0_ = backend_.buffer (0);
+	output1_ = (second_ > 0) ? backend_.buffer (1) : null;
+
+	render (data_, level_);
+
+	if (async) {
+	    renderer_ = new RenderThread (this, leds_);
+	    renderer_.start ();
+	}
+	else
+	    renderer_ = null;
     }
     
+    /**
+     * Set a single pixel.
+     * @param p The point.
+     * @param r The red value (0 to 255).
+     * @param g The green value (0 to 255).
+     * @param b The blue value (0 to 255).
+     */
     public void setPixel (Point p, int r, int g, int b)
     {       
 	if (!p.inside (max_) ||
-                r < 0 || r > 255 || g < 0 || g > 255 || b < 0 || b >= 255)
+		r < 0 || r > 255 || g < 0 || g > 255 || b < 0 || b > 255)
             throw new IllegalArgumentException ("Invalid parameter to WS2811.setPixel");
 
 	final int x = p.getX ();
@@ -98,19 +194,609 @@ public class WS2811 {
 	
 	// System.out.println ("pos " + x + ',' + y + " -> " + map_[x + i_width_ * y]);
 	 
-        data_[map_[x + i_width_ * y]] = (r << 16) | (g << 8) | b;
+	put (map_[x + i_width_ * y], (r << 16) | (g << 8) | b);
+    }
+
+    /**
+     * Set a single pixel from a packed value.
+     * @param x The x co-ordinate.
+     * @param y The y co-ordinate.
+     * @param rgb The colour as 0xRRGGBB, anything above that is ignored.
+     */
+    public void setPixel (int x, int y, int rgb)
+    {
+	if (x < 0 || x >= i_width_ || y < 0 || y >= i_height_)
+	    throw new IllegalArgumentException ("Invalid parameter to WS2811.setPixel");
+
+	put (map_[x + i_width_ * y], rgb & RGB_MASK);
+    }
+
+    /**
+     * Obtain a single pixel.
+     * @param x The x co-ordinate.
+     * @param y The y co-ordinate.
+     * @return The colour as 0xRRGGBB.
+     */
+    public int getPixel (int x, int y)
+    {
+	if (x < 0 || x >= i_width_ || y < 0 || y >= i_height_)
+	    throw new IllegalArgumentException ("Invalid parameter to WS2811.getPixel");
+
+	return data_[map_[x + i_width_ * y]];
+    }
+
+    /**
+     * Set a single pixel by its row-major index, that is x + width * y.
+     * @param index The index.
+     * @param rgb The colour as 0xRRGGBB, anything above that is ignored.
+     */
+    public void setIndex (int index, int rgb)
+    {
+	if (index < 0 || index >= i_width_ * i_height_)
+	    throw new IllegalArgumentException ("Invalid parameter to WS2811.setIndex");
+
+	put (map_[index], rgb & RGB_MASK);
+    }
+
+    /**
+     * Set the whole frame from a row-major array of packed values.
+     * @param frame The frame, width times height values of 0xRRGGBB.
+     */
+    public void setPixels (int[] frame)
+    {
+	final int size = i_width_ * i_height_;
+
+	if (frame.length < size)
+	    throw new IllegalArgumentException ("Invalid parameter to WS2811.setPixels");
+
+	for (int i = 0; i < size; ++i)
+	    put (map_[i], frame[i] & RGB_MASK);
+    }
+
+    /**
+     * Obtain the whole frame as a row-major array of packed values.
+     * @param frame Where to put it, at least width times height long.
+     */
+    public void getPixels (int[] frame)
+    {
+	final int size = i_width_ * i_height_;
+
+	if (frame.length < size)
+	    throw new IllegalArgumentException ("Invalid parameter to WS2811.getPixels");
+
+	for (int i = 0; i < size; ++i)
+	    frame[i] = data_[map_[i]];
+    }
+
+    /**
+     * Set one row from an array of packed values.
+     * @param y The row.
+     * @param row Where to take the values from.
+     * @param offset The offset into row of the first (x = 0) value.
+     */
+    public void setRow (int y, int[] row, int offset)
+    {
+	if (y < 0 || y >= i_height_ || offset < 0 || offset + i_width_ > row.length)
+	    throw new IllegalArgumentException ("Invalid parameter to WS2811.setRow");
+
+	final int base = i_width_ * y;
+
+	for (int x = 0; x < i_width_; ++x)
+	    put (map_[base + x], row[offset + x] & RGB_MASK);
+    }
+
+    /**
+     * Copy one row to another.
+     * @param from The row to copy.
+     * @param to The row to copy it to.
+     */
+    public void copyRow (int from, int to)
+    {
+	if (from < 0 || from >= i_height_ || to < 0 || to >= i_height_)
+	    throw new IllegalArgumentException ("Invalid parameter to WS2811.copyRow");
+
+	final int from_base = i_width_ * from;
+	final int to_base = i_width_ * to;
+
+	for (int x = 0; x < i_width_; ++x)
+	    put (map_[to_base + x], data_[map_[from_base + x]]);
+    }
+
+    /**
+     * Fill a rectangle with a single colour.
+     * @param x The left of the rectangle.
+     * @param y The top of the rectangle.
+     * @param width The width of the rectangle.
+     * @param height The height of the rectangle.
+     * @param rgb The colour as 0xRRGGBB.
+     */
+    public void fillRect (int x, int y, int width, int height, int rgb)
+    {
+	if (x < 0 || y < 0 || width < 0 || height < 0 ||
+		x + width > i_width_ || y + height > i_height_)
+	    throw new IllegalArgumentException ("Invalid parameter to WS2811.fillRect");
+
+	final int value = rgb & RGB_MASK;
+
+	for (int row = y; row < y + height; ++row) {
+	    final int base = i_width_ * row;
+
+	    for (int i = base + x; i < base + x + width; ++i)
+		put (map_[i], value);
+	}
+    }
+
+    /**
+     * Fill the whole display with a single colour.
+     * @param rgb The colour as 0xRRGGBB.
+     */
+    public void fill (int rgb)
+    {
+	fillRect (0, 0, i_width_, i_height_, rgb);
+    }
+
+    /**
+     * Draw the whole frame with a shader. The rows are shared out across
+     * all the cores and each pixel goes straight into the frame through the
+     * mapping table.
+     *
+     * As the work is split up individual pixels aren't tracked: if anything
+     * changed the whole frame is sent at the next show and every pixel is
+     * reported as changed.
+     * @param shader The shader.
+     * @param nanos The time to pass to the shader.
+     */
+    public void shade (Shader shader, long nanos)
+    {
+	if (shader == null)
+	    throw new IllegalArgumentException ("Invalid parameter to WS2811.shade");
+
+	final int changed = ForkJoinPool.commonPool ().invoke (new ShadeTask (shader, nanos, 0, i_height_));
+
+	if (changed > 0) {
+	    Arrays.fill (dirty_, -1L);
+	    changed_ = leds_;
+
+	    // Nearly everything has usually changed so just start again.
+	    total ();
+	}
+    }
+
+    /**
+     * Obtain the input width.
+     * @return The width.
+     */
+    public int getWidth ()
+    {
+	return i_width_;
+    }
+
+    /**
+     * Obtain the input height.
+     * @return The height.
+     */
+    public int getHeight ()
+    {
+	return i_height_;
     }
     
-    public void show ()
+    /**
+     * Show the current frame if anything has changed since it was last shown.
+     * In asynchronous mode this returns as soon as the frame has been queued.
+     * @return The number of pixels that changed, zero if nothing was sent.
+     */
+    public int show ()
+    {
+	final int changed = changed_;
+
+	// Nothing to do? Don't bother the string then.
+	if (changed == 0 && !invalid_)
+	    return 0;
+
+	final int level = level ();
+
+	if (renderer_ != null) {
+	    final int[] next = renderer_.submit (data_, level);
+
+	    // If the frame was dropped keep everything as it is so it goes
+	    // next time.
+	    if (next == data_) {
+		invalid_ = true;
+		return 0;
+	    }
+
+	    // We get back the buffer from two frames before. Only the pixels
+	    // that are dirty now or were for the last frame differ so just
+	    // bring those up to date.
+	    catchUp (next);
+	    data_ = next;
+
+	    final long[] last = last_;
+
+	    last_ = dirty_;
+	    dirty_ = last;
+	}
+	else
+	    render (data_, level);
+
+	// Start afresh.
+	Arrays.fill (dirty_, 0);
+	changed_ = 0;
+	invalid_ = false;
+
+	return changed;
+    }
+
+    /**
+     * Force the next show to send the frame even if nothing has changed.
+     */
+    public void invalidate ()
+    {
+	invalid_ = true;
+    }
+
+    /**
+     * Find out if anything has changed since the last show.
+     * @return The number of pixels that have changed.
+     */
+    public int getChanged ()
     {
-        WS2811Raw.ws2811_update (data_);
+	return changed_;
+    }
+
+    /**
+     * Wait until everything shown has actually gone out to the string.
+     */
+    public void flush ()
+    {
+	if (renderer_ != null)
+	    renderer_.flush ();
+	else
+	    backend_.waitDone ();
+    }
+
+    /**
+     * Send a frame to the string and start the DMA. This doesn't wait for
+     * the DMA to complete.
+     * @param frame The frame.
+     * @param level The brightness level to send it at.
+     */
+    void render (int[] frame, int level)
+    {
+	final int[] committed = commit (frame);
+
+	// Only tell the backend if it's changed.
+	if (level != level_) {
+	    backend_.brightness (level);
+	    level_ = level;
+	}
+
+	// If we have the backend's buffers it's one bulk copy per channel and
+	// no JNI array handling at all. Otherwise fall back to the array
+	// interface.
+	if (output0_ != null && (second_ == 0 || output1_ != null)) {
+	    output0_.clear ();
+	    output0_.put (committed, 0, first_);
+
+	    if (second_ > 0) {
+		output1_.clear ();
+		output1_.put (committed, first_, second_);
+	    }
+
+	    backend_.render ();
+	}
+	else
+	    backend_.update (committed);
+    }
+
+    /**
+     * Apply any processing to a frame on its way to the string. The frame
+     * itself is never changed.
+     * @param frame The frame.
+     * @return The processed frame. This may be the original.
+     */
+    private int[] commit (int[] frame)
+    {
+	final ColourCorrection correction = correction_;
+
+	if (correction == null)
+	    return frame;
+
+	final TemporalDither dither = dither_;
+
+	if (dither != null)
+	    dither.apply (correction, frame, commit_, leds_);
+	else
+	    correction.apply (frame, commit_, leds_);
+
+	return commit_;
+    }
+
+    /**
+     * Turn temporal dithering on or off. This spreads the fraction lost when
+     * colour correction scales values down over successive frames. It only
+     * does anything with a colour correction set and is meant for
+     * asynchronous mode, where the last frame is sent again and again as fast
+     * as the string can take it while dithering is on. For the best results
+     * set the brightness to 1 and do the scaling in the colour correction.
+     * @param dither True to dither.
+     */
+    public void setDither (boolean dither)
+    {
+	if (dither == (dither_ != null))
+	    return;
+
+	dither_ = dither ? new TemporalDither (leds_) : null;
+
+	invalidate ();
+
+	if (renderer_ != null)
+	    renderer_.wake ();
+    }
+
+    /**
+     * Are we dithering?
+     * @return True if we are.
+     */
+    public boolean isDithering ()
+    {
+	return dither_ != null && correction_ != null;
+    }
+
+    /**
+     * Set the colour correction applied as each frame is sent. This can be
+     * changed at any time and the frame is sent again with it applied at the
+     * next show.
+     * @param correction The correction or null for none.
+     */
+    public void setCorrection (ColourCorrection correction)
+    {
+	correction_ = correction;
+	invalidate ();
+
+	if (renderer_ != null)
+	    renderer_.wake ();
+    }
+
+    /**
+     * Set the brightness.
+     * @param brightness The brightness in the range 0 to 1.
+     */
+    public void setBrightness (double brightness)
+    {
+	if (brightness < 0 || brightness > 1)
+	    throw new IllegalArgumentException ("Invalid parameter to WS2811.setBrightness");
+
+	brightness_ = (int) (brightness * 255);
+	invalidate ();
+    }
+
+    /**
+     * Set the power budget. At each show the current the frame would draw is
+     * estimated and if it's over the limit the brightness is turned down to
+     * bring it back under.
+     * @param budget The budget or null for no limit.
+     */
+    public void setPowerBudget (PowerBudget budget)
+    {
+	budget_ = budget;
+	invalidate ();
+    }
+
+    /**
+     * Estimate the current the frame would draw as things stand, taking any
+     * power limit into account.
+     * @return The current in mA.
+     */
+    public double getEstimatedCurrent ()
+    {
+	final PowerBudget budget = (budget_ != null) ? budget_ : DEFAULT_BUDGET;
+	final int level = level ();
+
+	return budget.estimate (red_, green_, blue_, leds_, level);
+    }
+
+    /**
+     * Work out the brightness level to send the frame at.
+     * @return The level.
+     */
+    private int level ()
+    {
+	final PowerBudget budget = budget_;
+
+	// The totals are of what's sent so redo them if the correction changed.
+	if (totalled_ != correction_)
+	    total ();
+
+	return (budget == null) ? brightness_ : budget.limit (red_, green_, blue_, leds_, brightness_);
+    }
+
+    /**
+     * Recalculate the channel totals from scratch with the current colour
+     * correction applied.
+     */
+    private void total ()
+    {
+	final ColourCorrection correction = correction_;
+	long red = 0;
+	long green = 0;
+	long blue = 0;
+
+	for (int i = 0; i < leds_; ++i) {
+	    final int value = (correction == null) ? data_[i] : correction.apply (data_[i]);
+
+	    red += (value >>> 16) & 0xff;
+	    green += (value >>> 8) & 0xff;
+	    blue += value & 0xff;
+	}
+
+	red_ = red;
+	green_ = green;
+	blue_ = blue;
+	totalled_ = correction;
+    }
+
+    /**
+     * Bring the buffer of the frame two before up to date with the current
+     * one by copying just the pixels dirty for this frame or the last.
+     * @param previous The buffer holding the frame two before.
+     */
+    private void catchUp (int[] previous)
+    {
+	for (int word = 0; word < dirty_.length; ++word) {
+	    long bits = dirty_[word] | last_[word];
+
+	    while (bits != 0) {
+		final int index = (word << 6) + Long.numberOfTrailingZeros (bits);
+
+		// Shading sets whole words so there may be bits past the end.
+		if (index >= leds_)
+		    break;
+
+		previous[index] = data_[index];
+		bits &= bits - 1;
+	    }
+	}
+    }
+
+    /**
+     * Store a value in the frame, noting if it changed.
+     * @param index The (mapped) index.
+     * @param value The value.
+     */
+    private void put (int index, int value)
+    {
+	final int old = data_[index];
+
+	if (old != value) {
+	    data_[index] = value;
+
+	    // Keep the channel totals up to date for the power estimate. They
+	    // are of the corrected values as that's what the string sees.
+	    final ColourCorrection correction = totalled_;
+	    final int now = (correction == null) ? value : correction.apply (value);
+	    final int was = (correction == null) ? old : correction.apply (old);
+
+	    red_ += ((now >>> 16) & 0xff) - ((was >>> 16) & 0xff);
+	    green_ += ((now >>> 8) & 0xff) - ((was >>> 8) & 0xff);
+	    blue_ += (now & 0xff) - (was & 0xff);
+
+	    final int word = index >>> 6;
+	    final long bit = 1L << index;
+
+	    // Only count each pixel once however often it changes.
+	    if ((dirty_[word] & bit) == 0) {
+		dirty_[word] |= bit;
+		changed_ += 1;
+	    }
+	}
+    }
+
+    /**
+     * Wait for the DMA to complete.
+     */
+    void waitDone ()
+    {
+	backend_.waitDone ();
     }
    
     void close ()
     {
-        WS2811Raw.ws2811_close ();
+	if (renderer_ != null)
+	    renderer_.shutdown ();
+
+	backend_.close ();
     }
     
+    /**
+     * Run a shader over a range of rows, splitting it if it's big enough to
+     * be worth it.
+     */
+    private class ShadeTask extends RecursiveTask<Integer>
+    {
+	/**
+	 * Create the task.
+	 * @param shader The shader.
+	 * @param nanos The time to pass to the shader.
+	 * @param from The first row.
+	 * @param to One past the last row.
+	 */
+	public ShadeTask (Shader shader, long nanos, int from, int to)
+	{
+	    shader_ = shader;
+	    nanos_ = nanos;
+	    from_ = from;
+	    to_ = to;
+	}
+
+	/**
+	 * Do the work.
+	 * @return The number of pixels that changed.
+	 */
+	@Override
+	protected Integer compute ()
+	{
+	    // Small enough? Just do it.
+	    if (to_ - from_ <= 1 || (to_ - from_) * i_width_ <= SHADE_CHUNK)
+		return shade ();
+
+	    final int middle = (from_ + to_) >>> 1;
+	    final ShadeTask first = new ShadeTask (shader_, nanos_, from_, middle);
+
+	    first.fork ();
+
+	    final int second = new ShadeTask (shader_, nanos_, middle, to_).compute ();
+
+	    return first.join () + second;
+	}
+
+	/**
+	 * Shade our rows directly.
+	 * @return The number of pixels that changed.
+	 */
+	private int shade ()
+	{
+	    int changed = 0;
+
+	    for (int y = from_; y < to_; ++y) {
+		final int base = i_width_ * y;
+
+		for (int x = 0; x < i_width_; ++x) {
+		    final int index = map_[base + x];
+		    final int value = shader_.shade (x, y, nanos_) & RGB_MASK;
+
+		    if (data_[index] != value) {
+			data_[index] = value;
+			changed += 1;
+		    }
+		}
+	    }
+
+	    return changed;
+	}
+
+	/** Version for serialisation. */
+	private static final long serialVersionUID = 1L;
+
+	/** The shader. */
+	private final Shader shader_;
+	/** The time. */
+	private final long nanos_;
+	/** The first row. */
+	private final int from_;
+	/** One past the last row. */
+	private final int to_;
+    }
+
+    /** The model used to estimate current when there is no budget. */
+    private static final PowerBudget DEFAULT_BUDGET = new PowerBudget (Double.MAX_VALUE);
+
+    /** The number of pixels below which we don't split shading up. */
+    private static final int SHADE_CHUNK = 256;
+
+    /** The bits of a packed value that hold a colour. */
+    private static final int RGB_MASK = 0xffffff;
+
     final private int i_width_;
     final private int i_height_;
     final private Point max_;
@@ -121,5 +807,45 @@ public class WS2811 {
     final private int leds_;
 
     final private int[] map_;
-    final private int[] data_;
+    private int[] data_;
+    /** Where frames are processed on their way to the string. */
+    final private int[] commit_;
+    /** The colour correction, null for none. */
+    private volatile ColourCorrection correction_;
+    /** The brightness level we've been asked for. */
+    private volatile int brightness_;
+    /** The brightness level the backend is at. */
+    private int level_;
+    /** The power budget, null for none. */
+    private volatile PowerBudget budget_;
+    /** The correction the channel totals were worked out with. */
+    private ColourCorrection totalled_;
+    /** The total of the red channel over the frame. */
+    private long red_;
+    /** The total of the green channel over the frame. */
+    private long green_;
+    /** The total of the blue channel over the frame. */
+    private long blue_;
+    /** The dithering state, null if not dithering. */
+    private volatile TemporalDither dither_;
+    /** One bit per unit set if it has changed since the last show. */
+    private long[] dirty_;
+    /** The dirty bits of the frame before, kept for the render thread. */
+    private long[] last_;
+    /** The number of bits set in dirty_. */
+    private int changed_;
+    /** Should the next show happen regardless? */
+    private boolean invalid_;
+    /** What drives the string. */
+    final private WS2811Backend backend_;
+    /** The number of units on channel 0. */
+    final private int first_;
+    /** The number of units on channel 1. */
+    final private int second_;
+    /** The backend's channel 0 buffer, null if not available. */
+    final private IntBuffer output0_;
+    /** The backend's channel 1 buffer, null if not available or in use. */
+    final private IntBuffer output1_;
+    /** The background renderer, null if we're synchronous. */
+    final private RenderThread renderer_;
 }
@@ -0,0 +1,82 @@
+/*
+ * Copyright (C) 2016 Jim Darby.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+import java.nio.IntBuffer;
+
+/**
+ * The interface to whatever actually drives the string. This is normally the
+ * native library (see NativeBackend) but can be a simulation (see
+ * SimulatedBackend) so the rest of the code can run without a Pi.
+ * 
+ * @author Jim Darby
+ */
+
+public interface WS2811Backend
+{
+    /**
+     * Initialise the backend. Both channels are sent together.
+     * @param type The type of the strings, one of the WS2811Raw.WS2811_STRIP_
+     * values.
+     * @param length0 The number of units on channel 0.
+     * @param length1 The number of units on channel 1, may be zero.
+     * @return If it worked.
+     */
+    boolean init (int type, int length0, int length1);
+
+    /**
+     * Set the brightness level.
+     * @param level The scaling in the range 0 to 255.
+     * @return If it worked.
+     */
+    boolean brightness (int level);
+
+    /**
+     * Obtain the buffer the backend renders a channel from. Writing to it and
+     * calling render sends data with no further copying.
+     * @param channel The channel, 0 or 1.
+     * @return The buffer or null if the backend doesn't provide one or the
+     * channel isn't in use.
+     */
+    IntBuffer buffer (int channel);
+
+    /**
+     * Send the data to the string. Used if there is no buffer.
+     * @param data One int per unit, channel 0 followed by channel 1.
+     * @return If it worked.
+     */
+    boolean update (int[] data);
+
+    /**
+     * Send whatever is in the buffers to the strings. This starts the transfer
+     * but need not wait for it to complete.
+     * @return If it worked.
+     */
+    boolean render ();
+
+    /**
+     * Wait for any transfer in progress to complete.
+     * @return If it worked.
+     */
+    boolean waitDone ();
+
+    /**
+     * Shut the backend down.
+     * @return If it worked.
+     */
+    boolean close ();
+}
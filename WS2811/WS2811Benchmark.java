@@ -0,0 +1,255 @@
+/*
+ * Copyright (C) 2016 Jim Darby.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * A simple benchmark for the mapping and frame pipeline. It times each
+ * operation after a warm up and reports the time and bytes allocated per
+ * operation using a realistic mapping chain on a range of grid sizes. The
+ * string is simulated so this runs anywhere.
+ *
+ * Run it with: java WS2811Benchmark [seconds per case]
+ * 
+ * @author Jim Darby
+ */
+
+public class WS2811Benchmark
+{
+    /**
+     * A single thing to time.
+     */
+    private static abstract class Case
+    {
+	/**
+	 * Create a case.
+	 * @param name What we call it.
+	 */
+	public Case (String name)
+	{
+	    name_ = name;
+	}
+
+	/**
+	 * Perform the operation once.
+	 */
+	public abstract void op ();
+
+	/** The name of the case. */
+	public final String name_;
+	/** How many times the operation has run, to vary what it writes. */
+	protected int round_;
+    }
+
+    /**
+     * Run the benchmarks.
+     * @param args Optionally the number of seconds to run each case for.
+     */
+    public static void main (String[] args)
+    {
+	final double seconds = (args.length > 0) ? Double.parseDouble (args[0]) : 1;
+	final int[] sizes = { 8, 16, 32, 64 };
+
+	System.out.printf ("%-24s %6s %14s %12s%n", "Benchmark", "Size", "ns/op", "B/op");
+
+	for (int size : sizes)
+	    for (Case c : cases (size))
+		run (c, size, seconds);
+    }
+
+    /**
+     * Build the cases for one grid size.
+     * @param size The width and height of the grid.
+     * @return The cases.
+     */
+    private static Case[] cases (final int size)
+    {
+	final Mapping chain = chain (size);
+	// Two frames that differ in every pixel. Writing the same values
+	// each time would only measure the path where nothing changes.
+	final int[][] frames = new int[2][size * size];
+
+	for (int i = 0; i < size * size; ++i) {
+	    frames[0][i] = i * 0x010305;
+	    frames[1][i] = frames[0][i] ^ 0x010101;
+	}
+
+	final Shader plasma = new Shader () {
+		public int shade (int x, int y, long nanos)
+		{
+		    final double t = nanos * 1e-9;
+		    final int v = (int) (127.5 + 127.5 * Math.sin (x * 0.3 + t) * Math.cos (y * 0.2 - t));
+
+		    return (v << 16) | ((255 - v) << 8) | (v >> 1);
+		}
+	    };
+	final WS2811 strip = new WS2811 (size, size, chain, WS2811Raw.WS2811_STRIP_GRB, 1,
+					 false, new SimulatedBackend (1, false));
+
+	return new Case[] {
+	    new Case ("Mapping.map") {
+		public void op ()
+		{
+		    long sum = 0;
+
+		    for (int y = 0; y < size; ++y)
+			for (int x = 0; x < size; ++x)
+			    sum += chain.map (new Point (x, y)).getX ();
+
+		    sink_ = sum;
+		}
+	    },
+	    new Case ("Mapping.mapPacked") {
+		public void op ()
+		{
+		    long sum = 0;
+
+		    for (int y = 0; y < size; ++y)
+			for (int x = 0; x < size; ++x)
+			    sum += chain.mapPacked (Mapping.pack (x, y));
+
+		    sink_ = sum;
+		}
+	    },
+	    new Case ("Mapping.compile") {
+		public void op ()
+		{
+		    sink_ = chain.compile ().length;
+		}
+	    },
+	    new Case ("WS2811.<init>") {
+		public void op ()
+		{
+		    final WS2811 s = new WS2811 (size, size, chain, WS2811Raw.WS2811_STRIP_GRB, 1,
+						 false, new SimulatedBackend (1, false));
+
+		    s.close ();
+		}
+	    },
+	    new Case ("WS2811.setPixel(Point)") {
+		public void op ()
+		{
+		    final int b = 7 ^ (++round_ & 1);
+
+		    for (int y = 0; y < size; ++y)
+			for (int x = 0; x < size; ++x)
+			    strip.setPixel (new Point (x, y), x, y, b);
+		}
+	    },
+	    new Case ("WS2811.setPixel(x,y)") {
+		public void op ()
+		{
+		    final int[] frame = frames[++round_ & 1];
+
+		    for (int y = 0; y < size; ++y)
+			for (int x = 0; x < size; ++x)
+			    strip.setPixel (x, y, frame[x + size * y]);
+		}
+	    },
+	    new Case ("WS2811.setPixels") {
+		public void op ()
+		{
+		    strip.setPixels (frames[++round_ & 1]);
+		}
+	    },
+	    new Case ("WS2811.shade") {
+		public void op ()
+		{
+		    // Move the time on so the frame changes each time.
+		    strip.shade (plasma, ++round_ * 1000000L);
+		}
+	    },
+	    new Case ("WS2811.show") {
+		public void op ()
+		{
+		    strip.invalidate ();
+		    strip.show ();
+		}
+	    },
+	    new Case ("WS2811.show(unchanged)") {
+		public void op ()
+		{
+		    sink_ = strip.show ();
+		}
+	    }
+	};
+    }
+
+    /**
+     * Build the chain we benchmark: FlipY then SwapXY then Snake.
+     * @param size The width and height of the grid.
+     * @return The chain.
+     */
+    private static Mapping chain (int size)
+    {
+	return new Snake (new SwapXY (new FlipY (size, size)));
+    }
+
+    /**
+     * Warm up and then time a single case.
+     * @param c The case.
+     * @param size The grid size, for reporting.
+     * @param seconds How long to time it for.
+     */
+    private static void run (Case c, int size, double seconds)
+    {
+	final long budget = (long) (seconds * 1e9);
+
+	// Warm up for the same time we measure.
+	long ops = 1;
+
+	for (long start = System.nanoTime (); System.nanoTime () - start < budget; ops *= 2)
+	    for (long i = 0; i < ops; ++i)
+		c.op ();
+
+	// Now do it for real with a count that should take about the budget.
+	final long count = Math.max (1, ops / 2);
+	final long bytes_before = allocated ();
+	final long start = System.nanoTime ();
+
+	for (long i = 0; i < count; ++i)
+	    c.op ();
+
+	final long elapsed = System.nanoTime () - start;
+	final long bytes = allocated () - bytes_before;
+
+	System.out.printf ("%-24s %6d %14.1f %12.1f%n", c.name_, size,
+			   ((double) elapsed) / count,
+			   (bytes < 0) ? Double.NaN : ((double) bytes) / count);
+    }
+
+    /**
+     * Obtain the number of bytes allocated by this thread so far.
+     * @return The bytes or -1 if the JVM can't tell us.
+     */
+    private static long allocated ()
+    {
+	final java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean ();
+
+	if (bean instanceof com.sun.management.ThreadMXBean)
+	    return ((com.sun.management.ThreadMXBean) bean).getThreadAllocatedBytes (Thread.currentThread ().getId ());
+
+	return -1;
+    }
+
+    /**
+     * Where results go so they aren't optimised away. Each case writes it
+     * once per operation so the store costs next to nothing.
+     */
+    private static volatile long sink_;
+}
@@ -16,6 +16,8 @@
  * <http://www.gnu.org/licenses/>.
  */
 
+import java.nio.ByteBuffer;
+
 /**
  * The most basic interface to the native libraries. We try and do as much as
  * possible in Java land.
@@ -33,6 +35,16 @@ public class WS2811Raw {
      * @return If it worked.
      */
     public static native boolean ws2811_init (int type, int length);
+    /**
+     * Initialise the system using both PWM channels: channel 0 on GPIO 18 and
+     * channel 1 on GPIO 13. Both are sent in the same DMA pass. Only one user
+     * may use it at once.
+     * @param type The type of the strings.
+     * @param length0 The number of units on channel 0.
+     * @param length1 The number of units on channel 1, may be zero.
+     * @return If it worked.
+     */
+    public static native boolean ws2811_init_channels (int type, int length0, int length1);
     /**
      * Set the brightness level. The value is a double in the range 0.0 to 1.0. 
      * @param level The scaling in the range 0 to 255.
@@ -42,10 +54,26 @@ public class WS2811Raw {
     /**
      * Send the data to the string.
      * @param data An array of ints, one per unit in the string. This must me
-     * the same length as used for the ws2811_init method.
+     * the same length as used for the ws2811_init method. If both channels
+     * are in use it holds channel 0 followed by channel 1.
      * @return If it worked.
      */
     public static native boolean ws2811_update (int[] data);
+    /**
+     * Obtain the native LED data as a direct buffer. Writing to it writes
+     * straight into the memory the library renders from so there is no copy
+     * at all. It is only valid between ws2811_init and ws2811_close and holds
+     * one int per unit in native byte order.
+     * @param channel The channel, 0 or 1.
+     * @return The buffer or null if it failed or the channel isn't in use.
+     */
+    public static native ByteBuffer ws2811_buffer (int channel);
+    /**
+     * Send whatever is currently in the buffers from ws2811_buffer to the
+     * strings. Both channels go in one DMA pass.
+     * @return If it worked.
+     */
+    public static native boolean ws2811_render ();
     /**
      * Wait for the DMA to complete.
      * @return If it worked.
@@ -0,0 +1,299 @@
+/*
+ * Copyright (C) 2016 Jim Darby.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+
+import java.util.Arrays;
+
+import org.raspberrypi.WeatherStation.Readings;
+import org.raspberrypi.WeatherStation.ReadingsListener;
+import org.raspberrypi.WeatherStation.WeatherStation;
+
+/**
+ * Show the weather station's readings on a WS2811 matrix. The left of the
+ * matrix is a wind rose with a light on its edge for the wind direction and
+ * the centre showing the speed, both coloured by speed. The right hand column
+ * is a temperature bar and the columns in between are a rain ticker that
+ * moves on one column with each reading.
+ *
+ * Readings arrive on the sampling thread and are just stored. The drawing is
+ * done by an Animator on its own thread so it never holds up sampling. The
+ * positions and palettes are all worked out up front, and a frame is only
+ * drawn when new readings have arrived.
+ * 
+ * @author Jim Darby
+ */
+
+public class WeatherDisplay implements Animation, ReadingsListener
+{
+    /**
+     * Create a display.
+     * @param width The width of the matrix, at least its height plus two.
+     * @param height The height of the matrix, at least three.
+     */
+    public WeatherDisplay (int width, int height)
+    {
+	if (height < 3 || width < height + 2)
+	    throw new IllegalArgumentException ("Invalid parameter to WeatherDisplay");
+
+	width_ = width;
+	height_ = height;
+	frame_ = new int[width * height];
+	rain_ = new double[width - height - 1];
+	rain_copy_ = new double[rain_.length];
+	rose_ = new int[COMPASS_POINTS];
+	ring_ = ring (height);
+
+	// Work out where each compass point goes on the edge of the rose.
+	final double centre = (height - 1) / 2.0;
+
+	for (int i = 0; i < COMPASS_POINTS; ++i) {
+	    final double angle = 2 * Math.PI * i / COMPASS_POINTS;
+	    final double dx = Math.sin (angle);
+	    final double dy = -Math.cos (angle);
+	    final double scale = centre / Math.max (Math.abs (dx), Math.abs (dy));
+	    final int x = (int) Math.round (centre + dx * scale);
+	    final int y = (int) Math.round (centre + dy * scale);
+
+	    rose_[i] = x + width * y;
+	}
+
+	centre_ = (height / 2) * (width + 1);
+	wind_speed_ = -1000;
+	wind_direction_ = -1000;
+	temperature_ = -1000;
+	rain_next_ = 0;
+	version_ = 0;
+	drawn_ = -1;
+    }
+
+    /**
+     * Take a set of readings. This just stores them for the next frame.
+     * @param readings The readings.
+     */
+    @Override
+    public synchronized void readings (Readings readings)
+    {
+	wind_speed_ = readings.getWindSpeed ();
+	wind_direction_ = readings.getWindDirection ();
+	temperature_ = readings.getTemperature ();
+	rain_[rain_next_] = readings.getRain ();
+	rain_next_ = (rain_next_ + 1) % rain_.length;
+	version_ += 1;
+    }
+
+    /**
+     * Draw a frame if there are new readings.
+     * @param strip Where to draw it.
+     * @param frame The Animator's frame number.
+     * @param nanos The time of the frame.
+     */
+    @Override
+    public void frame (WS2811 strip, long frame, long nanos)
+    {
+	if (strip.getWidth () != width_ || strip.getHeight () != height_)
+	    throw new IllegalArgumentException ("WS2811 size does not match WeatherDisplay");
+
+	final double wind_speed;
+	final double wind_direction;
+	final double temperature;
+
+	synchronized (this) {
+	    if (version_ == drawn_)
+		return;
+
+	    drawn_ = version_;
+	    wind_speed = wind_speed_;
+	    wind_direction = wind_direction_;
+	    temperature = temperature_;
+
+	    // Oldest first.
+	    for (int i = 0; i < rain_.length; ++i)
+		rain_copy_[i] = rain_[(rain_next_ + i) % rain_.length];
+	}
+
+	Arrays.fill (frame_, 0);
+
+	// The wind rose.
+	for (int index : ring_)
+	    frame_[index] = RING;
+
+	if (wind_speed >= 0) {
+	    final int colour = lookup (SPEED, wind_speed / MAX_SPEED);
+
+	    frame_[centre_] = colour;
+
+	    if (wind_direction >= 0)
+		frame_[rose_[(int) Math.round (wind_direction * COMPASS_POINTS / 360) % COMPASS_POINTS]] = colour;
+	}
+
+	// The rain ticker, to the right of the rose with the oldest on the
+	// left.
+	for (int i = 0; i < rain_copy_.length; ++i)
+	    if (rain_copy_[i] > 0)
+		bar (height_ + i, (int) Math.ceil (rain_copy_[i] / RAIN_PER_PIXEL), RAIN);
+
+	// The temperature bar.
+	if (temperature > -1000) {
+	    final double fraction = (temperature - MIN_TEMPERATURE) / (MAX_TEMPERATURE - MIN_TEMPERATURE);
+
+	    bar (width_ - 1, Math.max (1, (int) Math.round (fraction * height_)), lookup (TEMPERATURE, fraction));
+	}
+
+	strip.setPixels (frame_);
+    }
+
+    /**
+     * Draw a bar up from the bottom of a column.
+     * @param x The column.
+     * @param length The length of the bar, clipped to the height.
+     * @param rgb The colour.
+     */
+    private void bar (int x, int length, int rgb)
+    {
+	final int top = height_ - Math.min (length, height_);
+
+	for (int y = height_ - 1; y >= top; --y)
+	    frame_[x + width_ * y] = rgb;
+    }
+
+    /**
+     * Find the indices of the edge of the rose.
+     * @param side The size of the rose.
+     * @return The indices.
+     */
+    private int[] ring (int side)
+    {
+	final int[] result = new int[4 * (side - 1)];
+	int n = 0;
+
+	for (int i = 0; i < side - 1; ++i) {
+	    result[n++] = i;
+	    result[n++] = side - 1 + width_ * i;
+	    result[n++] = side - 1 - i + width_ * (side - 1);
+	    result[n++] = width_ * (side - 1 - i);
+	}
+
+	return result;
+    }
+
+    /**
+     * Look a value up in a palette.
+     * @param palette The palette.
+     * @param fraction Where in the palette, clipped to 0 to 1.
+     * @return The colour.
+     */
+    private static int lookup (int[] palette, double fraction)
+    {
+	final int last = palette.length - 1;
+
+	return palette[Math.max (0, Math.min (last, (int) Math.round (fraction * last)))];
+    }
+
+    /**
+     * Build a palette by blending evenly between colours.
+     * @param size The number of entries.
+     * @param stops The colours to blend between as 0xRRGGBB.
+     * @return The palette.
+     */
+    private static int[] palette (int size, int... stops)
+    {
+	final int[] result = new int[size];
+
+	for (int i = 0; i < size; ++i) {
+	    final double at = (double) i * (stops.length - 1) / (size - 1);
+	    final int from = Math.min ((int) at, stops.length - 2);
+	    final double mix = at - from;
+	    int rgb = 0;
+
+	    for (int shift = 16; shift >= 0; shift -= 8) {
+		final int a = (stops[from] >>> shift) & 0xff;
+		final int b = (stops[from + 1] >>> shift) & 0xff;
+
+		rgb |= ((int) Math.round (a + (b - a) * mix)) << shift;
+	    }
+
+	    result[i] = rgb;
+	}
+
+	return result;
+    }
+
+    /**
+     * Run the station with a display on a 16 by 8 snaked matrix.
+     * @param args The arguments, passed to the station.
+     */
+    public static void main (String[] args)
+    {
+	final WS2811 strip = new WS2811 (16, 8, new Snake (16, 8), WS2811Raw.WS2811_STRIP_GRB, 0.25, true);
+	final WeatherDisplay display = new WeatherDisplay (16, 8);
+	final Animator animator = new Animator (strip, display, 10);
+
+	animator.setDaemon (true);
+	animator.start ();
+
+	WeatherStation.addListener (display);
+	WeatherStation.main (args);
+    }
+
+    /** The number of compass points on the rose. */
+    private static final int COMPASS_POINTS = 16;
+    /** The wind speed at the top of the palette in km/h. */
+    private static final double MAX_SPEED = 60;
+    /** The temperature at the bottom of the bar in degrees C. */
+    private static final double MIN_TEMPERATURE = -10;
+    /** The temperature at the top of the bar in degrees C. */
+    private static final double MAX_TEMPERATURE = 35;
+    /** The rain shown by each pixel of the ticker in mm. */
+    private static final double RAIN_PER_PIXEL = 0.2;
+    /** The colour of the edge of the rose. */
+    private static final int RING = 0x040404;
+    /** The colour of the rain. */
+    private static final int RAIN = 0x0030ff;
+    /** Wind speed colours from calm to gale. */
+    private static final int[] SPEED = palette (64, 0x002040, 0x00ff00, 0xffff00, 0xff0000);
+    /** Temperature colours from cold to hot. */
+    private static final int[] TEMPERATURE = palette (64, 0x0000ff, 0x00ffff, 0x00ff00, 0xffff00, 0xff0000);
+
+    /** The width of the matrix. */
+    private final int width_;
+    /** The height of the matrix, also the size of the rose. */
+    private final int height_;
+    /** The frame we draw into. */
+    private final int[] frame_;
+    /** The index of each compass point. */
+    private final int[] rose_;
+    /** The indices of the edge of the rose. */
+    private final int[] ring_;
+    /** The index of the middle of the rose. */
+    private final int centre_;
+    /** The rain from recent readings as a ring. */
+    private final double[] rain_;
+    /** The rain oldest first, taken when drawing. */
+    private final double[] rain_copy_;
+    /** Where the next rain reading goes. */
+    private int rain_next_;
+    /** The latest wind speed. */
+    private double wind_speed_;
+    /** The latest wind direction. */
+    private double wind_direction_;
+    /** The latest temperature. */
+    private double temperature_;
+    /** Incremented on each set of readings. */
+    private long version_;
+    /** The version last drawn. */
+    private long drawn_;
+}
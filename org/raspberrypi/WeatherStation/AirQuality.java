@@ -0,0 +1,80 @@
+/*
+ * Copyright (C) 2016 Jim Darby and the Raspberry Pi Foundation.
+ *
+ * This software is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this software.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.raspberrypi.WeatherStation;
+
+import org.raspberrypi.WeatherStation.DeviceDrivers.Conversion;
+import org.raspberrypi.WeatherStation.DeviceDrivers.MCP3427;
+
+/**
+ * The air quality sensor, read through an MCP3427.
+ * 
+ * @author Jim Darby
+ */
+public class AirQuality implements Sensor {
+    /**
+     * Create the sensor.
+     * @param adc The ADC the sensor is on, already set up.
+     * @param rollups Where to roll up the samples.
+     */
+    public AirQuality (MCP3427 adc, RollupEngine rollups)
+    {
+        adc_ = adc;
+        rollups_ = rollups;
+    }
+    
+    @Override
+    public String getName ()
+    {
+        return "Air quality";
+    }
+    
+    @Override
+    public Conversion getConversion ()
+    {
+        return adc_;
+    }
+    
+    @Override
+    public void sample ()
+    {
+        readings_.add (adc_.getValue ());
+        rollups_.add (Metric.AIR_QUALITY, 100 * (1 - ((double) adc_.getValue () / MCP3427.MAX)));
+    }
+    
+    @Override
+    public void reset ()
+    {
+        readings_.reset ();
+    }
+    
+    /**
+     * Get the air quality over the window.
+     * @return The quality as a percentage or -1000 if there are no samples.
+     */
+    public double getQuality ()
+    {
+        return (readings_.getCount () > 0) ? 100 * (1 - (readings_.getMean (0) / MCP3427.MAX)) : -1000;
+    }
+    
+    /** The ADC. */
+    private final MCP3427 adc_;
+    /** Where the samples are rolled up. */
+    private final RollupEngine rollups_;
+    /** The samples over the window. */
+    private final Statistics readings_ = new Statistics ();
+}
@@ -0,0 +1,145 @@
+/*
+ * Copyright (C) 2016 Jim Darby and the Raspberry Pi Foundation.
+ *
+ * This software is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this software.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.raspberrypi.WeatherStation;
+
+import org.raspberrypi.WeatherStation.DeviceDrivers.Conversion;
+import org.raspberrypi.WeatherStation.DeviceDrivers.PulseCounter;
+
+/**
+ * The wind speed sensor, which pulses as it turns. Gusts come from the times
+ * of the pulses rather than from the samples so they don't depend on how
+ * often we sample.
+ * 
+ * @author Jim Darby
+ */
+public class Anemometer implements Sensor {
+    /**
+     * Create the sensor.
+     * @param counter The counter for its pulses.
+     * @param calibration How to turn pulses into speeds.
+     * @param rollups Where to roll up the samples.
+     */
+    public Anemometer (PulseCounter counter, Calibration calibration, RollupEngine rollups)
+    {
+        counter_ = counter;
+        calibration_ = calibration;
+        rollups_ = rollups;
+        gust_ = new GustCalculator (counter, calibration);
+        latest_ = -1000;
+    }
+    
+    @Override
+    public String getName ()
+    {
+        return "Anemometer";
+    }
+    
+    @Override
+    public Conversion getConversion ()
+    {
+        return null;
+    }
+    
+    @Override
+    public void sample ()
+    {
+        final PulseCounter.Result wind = counter_.getResult ();
+        
+        gust_.update ();
+        final double elapsed = wind.getNanoseconds () / 1e9;
+        final double rate = wind.getCount () / elapsed;
+        final double scale = calibration_.getPulsesToWindSpeed ();
+        
+        readings_ += 1;
+        total_ += wind.getCount ();
+        time_ += elapsed;
+        
+        latest_ = (scale > 0) ? rate * scale : -1000;
+        
+        if (scale > 0)
+            rollups_.add (Metric.WIND_SPEED, latest_);
+    }
+    
+    @Override
+    public void reset ()
+    {
+        readings_ = 0;
+        total_ = 0;
+        time_ = 0;
+        gust_.reset ();
+    }
+    
+    /**
+     * Get the average speed over the window.
+     * @return The speed in km/h or -1000 if it's not known.
+     */
+    public double getSpeed ()
+    {
+        final double scale = calibration_.getPulsesToWindSpeed ();
+        
+        return (readings_ > 0 && scale > 0) ? (scale * total_ / time_) : -1000;
+    }
+    
+    /**
+     * Get the highest three second average speed over the window.
+     * @return The speed in km/h or -1000 if it's not known.
+     */
+    public double getGust ()
+    {
+        gust_.update ();
+        
+        return gust_.getGust ();
+    }
+    
+    /**
+     * Get the speed right now from the time between pulses.
+     * @return The speed in km/h or -1000 if it's not known.
+     */
+    public double getInstantaneous ()
+    {
+        gust_.update ();
+        
+        return gust_.getSpeed ();
+    }
+    
+    /**
+     * Get the speed over the most recent sample.
+     * @return The speed in km/h or -1000 if it's not known.
+     */
+    public double getLatest ()
+    {
+        return latest_;
+    }
+    
+    /** The pulse counter. */
+    private final PulseCounter counter_;
+    /** The calibration. */
+    private final Calibration calibration_;
+    /** Where the samples are rolled up. */
+    private final RollupEngine rollups_;
+    /** The number of samples. */
+    private int readings_;
+    /** The number of pulses. */
+    private long total_;
+    /** The time they were counted over in seconds. */
+    private double time_;
+    /** Works out the gusts. */
+    private final GustCalculator gust_;
+    /** The most recent speed. */
+    private double latest_;
+}
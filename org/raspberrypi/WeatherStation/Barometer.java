@@ -0,0 +1,122 @@
+/*
+ * Copyright (C) 2016 Jim Darby and the Raspberry Pi Foundation.
+ *
+ * This software is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this software.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.raspberrypi.WeatherStation;
+
+import org.raspberrypi.WeatherStation.DeviceDrivers.BMP180;
+import org.raspberrypi.WeatherStation.DeviceDrivers.Conversion;
+
+/**
+ * The pressure and temperature sensor, a BMP180.
+ * 
+ * @author Jim Darby
+ */
+public class Barometer implements Sensor {
+    /**
+     * Create the sensor.
+     * @param bmp180 The device, already set up.
+     * @param rollups Where to roll up the samples.
+     */
+    public Barometer (BMP180 bmp180, RollupEngine rollups)
+    {
+        bmp180_ = bmp180;
+        rollups_ = rollups;
+        latestTemperature_ = -1000;
+        latestPressure_ = -1000;
+    }
+    
+    @Override
+    public String getName ()
+    {
+        return "BMP180";
+    }
+    
+    @Override
+    public Conversion getConversion ()
+    {
+        return bmp180_;
+    }
+    
+    @Override
+    public void sample ()
+    {
+        final BMP180.Result tp = bmp180_.getResult ();
+        
+        latestTemperature_ = tp.getTemperature () / 10.0;
+        latestPressure_ = tp.getPressure () / 100.0;
+        
+        temperature_.add (latestTemperature_);
+        pressure_.add (latestPressure_);
+        rollups_.add (Metric.AIR_PRESSURE, latestPressure_);
+    }
+    
+    @Override
+    public void reset ()
+    {
+        temperature_.reset ();
+        pressure_.reset ();
+    }
+    
+    /**
+     * Get the temperature over the window.
+     * @return The temperature in degrees C or -1000 if there are no samples.
+     */
+    public double getTemperature ()
+    {
+        return temperature_.getMean (-1000);
+    }
+    
+    /**
+     * Get the pressure over the window.
+     * @return The pressure in hPa or -1000 if there are no samples.
+     */
+    public double getPressure ()
+    {
+        return pressure_.getMean (-1000);
+    }
+    
+    /**
+     * Get the most recent temperature.
+     * @return The temperature in degrees C or -1000 if there isn't one.
+     */
+    public double getLatestTemperature ()
+    {
+        return latestTemperature_;
+    }
+    
+    /**
+     * Get the most recent pressure.
+     * @return The pressure in hPa or -1000 if there isn't one.
+     */
+    public double getLatestPressure ()
+    {
+        return latestPressure_;
+    }
+    
+    /** The device. */
+    private final BMP180 bmp180_;
+    /** Where the samples are rolled up. */
+    private final RollupEngine rollups_;
+    /** The temperatures over the window. */
+    private final Statistics temperature_ = new Statistics ();
+    /** The pressures over the window. */
+    private final Statistics pressure_ = new Statistics ();
+    /** The most recent temperature. */
+    private double latestTemperature_;
+    /** The most recent pressure. */
+    private double latestPressure_;
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright (C) 2016 Jim Darby and the Raspberry Pi Foundation.
+ *
+ * This software is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this software.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.raspberrypi.WeatherStation;
+
+/**
+ * This class gathers the mean and standard deviation of a stream of angles
+ * such as wind directions as they arrive. Averaging angles directly goes wrong
+ * around north so instead we keep running sums of the sine and cosine of
+ * each one. The mean is the direction of the sum and the standard deviation
+ * is the Yamartino estimate, which needs only the same sums.
+ * 
+ * @author Jim Darby
+ */
+public class CircularStatistics {
+    /**
+     * Create an empty set of statistics.
+     */
+    public CircularStatistics ()
+    {
+        reset ();
+    }
+    
+    /**
+     * Create a copy of a set of statistics.
+     * @param other The statistics to copy.
+     */
+    public CircularStatistics (CircularStatistics other)
+    {
+        count_ = other.count_;
+        sinSum_ = other.sinSum_;
+        cosSum_ = other.cosSum_;
+    }
+    
+    /**
+     * Add an angle.
+     * @param degrees The angle in degrees.
+     */
+    public void add (double degrees)
+    {
+        final double radians = Math.toRadians (degrees);
+        
+        count_ += 1;
+        sinSum_ += Math.sin (radians);
+        cosSum_ += Math.cos (radians);
+    }
+    
+    /**
+     * Forget all the angles.
+     */
+    public void reset ()
+    {
+        count_ = 0;
+        sinSum_ = 0;
+        cosSum_ = 0;
+    }
+    
+    /**
+     * Get the number of angles.
+     * @return The count.
+     */
+    public long getCount ()
+    {
+        return count_;
+    }
+    
+    /**
+     * Get the mean angle.
+     * @param missing The value to return if there are no angles.
+     * @return The mean in degrees from 0 up to 360 or {@code missing}.
+     */
+    public double getMean (double missing)
+    {
+        if (count_ == 0)
+            return missing;
+        
+        final double mean = Math.toDegrees (Math.atan2 (sinSum_, cosSum_));
+        
+        // If it's negative then make it positive. Just below zero can round
+        // up to 360 so fold that back too.
+        final double positive = (mean < 0) ? mean + 360 : mean;
+        
+        return (positive >= 360) ? 0 : positive;
+    }
+    
+    /**
+     * Get the Yamartino estimate of the standard deviation.
+     * @param missing The value to return if there are no angles.
+     * @return The standard deviation in degrees or {@code missing}.
+     */
+    public double getStandardDeviation (double missing)
+    {
+        if (count_ == 0)
+            return missing;
+        
+        final double sin_mean = sinSum_ / count_;
+        final double cos_mean = cosSum_ / count_;
+        final double epsilon = Math.sqrt (Math.max (0, 1 - (sin_mean * sin_mean + cos_mean * cos_mean)));
+        
+        return Math.toDegrees (Math.asin (epsilon) * (1 + YAMARTINO * epsilon * epsilon * epsilon));
+    }
+    
+    /** The Yamartino constant, 2 / sqrt (3) - 1. */
+    private static final double YAMARTINO = 2 / Math.sqrt (3) - 1;
+    
+    /** The number of angles. */
+    private long count_;
+    /** The sum of the sines. */
+    private double sinSum_;
+    /** The sum of the cosines. */
+    private double cosSum_;
+}
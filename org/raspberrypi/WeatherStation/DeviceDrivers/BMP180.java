@@ -18,7 +18,7 @@ import com.pi4j.wiringpi.Gpio;
  * 
  * @author Jim Darby.
  */
-public class BMP180 {
+public class BMP180 implements Conversion {
     /**
      * The {@code BMP180.Result} class is used to return the result from a
      * reading of the BMP180 device. It is (typically) constructed by the
@@ -110,7 +110,8 @@ public class BMP180 {
     }
     
     /**
-     * Read the temperature and pressure from the device.
+     * Read the temperature and pressure from the device. The mode set for
+     * {@code start} is left unchanged.
      * 
      * @param mode Sets the precision. 0 is ultra low power with one sample, 1
      * is standard with two samples, 2 is high resolution with four samples and
@@ -121,44 +122,93 @@ public class BMP180 {
      * problems.
      */
     public Result read (int mode) throws IOException
+    {
+        // Leave the mode start uses as it was.
+        final int saved_mode = this.mode;
+        
+        setMode (mode);
+        
+        try {
+            complete ();
+        }
+        
+        finally {
+            this.mode = saved_mode;
+        }
+        
+        return result;
+    }
+    
+    /**
+     * Set the precision used by conversions started with {@code start}.
+     * 
+     * @param mode The precision, as for {@code read}.
+     * @throws IOException In the case of invalid mode selection.
+     */
+    public void setMode (int mode) throws IOException
     {
         // Validate the mode
         if (mode < 0 || mode > 3)
             throw new IOException ("BMP180: Invalid mode");
         
-        // Request the temperature and get the result as per the data sheet.
+        this.mode = mode;
+    }
+    
+    /**
+     * Start a conversion. This requests the temperature.
+     * @return How many milliseconds until the temperature is ready.
+     * @throws IOException If something goes amiss talking to the device.
+     */
+    @Override
+    public int start () throws IOException
+    {
+        // Request the temperature as per the data sheet.
         device.write (CMD_REG, CMD_READ_TEMP);
-        Gpio.delay (5);
-        
-        if (device.read (RESULT_REG, buffer, 0, TEMP_SIZE) != TEMP_SIZE)
-            throw new IOException ("BMP180: Short temperature read");
+        pressure_phase = false;
         
-        // Perform rituals as per the data sheet.
-        final int UT = (buffer[0] << 8) | (buffer[1] & 0xff);
+        return 5;
+    }
+    
+    /**
+     * Carry on with the conversion. The first step collects the temperature
+     * and requests the pressure, the second collects the pressure.
+     * @return How many milliseconds until the pressure is ready or
+     * {@code DONE} when we have the result.
+     * @throws IOException If something goes amiss talking to the device.
+     */
+    @Override
+    public int step () throws IOException
+    {
+        if (!pressure_phase) {
+            if (device.read (RESULT_REG, buffer, 0, TEMP_SIZE) != TEMP_SIZE)
+                throw new IOException ("BMP180: Short temperature read");
+
+            // Perform rituals as per the data sheet.
+            final int UT = (buffer[0] << 8) | (buffer[1] & 0xff);
+
+            final long X1 = ((UT - AC6) * AC5) / 32768;
+            final long X2 = (MC * 2048) / (X1 + MD);
+            B5 = X1 + X2;
+
+            // Request the pressure as per the data sheet.
+            device.write (CMD_REG, (byte) (CMD_READ_PRESSURE + (mode << 6)));
+            pressure_phase = true;
+            
+            return DELAYS[mode];
+        }
         
-        long X1 = ((UT - AC6) * AC5) / 32768;
-        long X2 = (MC * 2048) / (X1 + MD);
-        final long B5 = X1 + X2;
+        if (device.read (RESULT_REG, buffer, 0, PRESSURE_SIZE) != PRESSURE_SIZE)
+            throw new IOException ("BMP180: Short pressure read");
         
         // Obtain the temperature as degrees Celsius times 10.
         final long T = (B5 + 8) / 16;
         
-        // How long it takes to read the pressure for each mode.
-        final int delays[] = {5, 8, 14, 26};
-        
-        // Request the pressure and get the result as per the data sheet.
-        device.write (CMD_REG, (byte) (CMD_READ_PRESSURE + (mode << 6)));
-        Gpio.delay (delays[mode]);
-        
-        if (device.read (RESULT_REG, buffer, 0, PRESSURE_SIZE) != PRESSURE_SIZE)
-            throw new IOException ("BMP180: Short pressure read");
-        
         // Perform more magic as per the data sheet.
         final int UP = (((buffer[0] & 0xff) << 16) | ((buffer[1] & 0xff) << 8) | (buffer[2] & 0xff)) >> (8 - mode);
         
         final long B6 = B5 - 4000;
-        X1 = (B2 * ((B6 * B6) / 4096)) / 2048;
-        X2 = (AC2 * B6) / 2048;
+        long X1 = (B2 * ((B6 * B6) / 4096)) / 2048;
+        long X2 = (AC2 * B6) / 2048;
         long X3 = X1 + X2;
         final long B3 = (((AC1 * 4 + X3) << mode) + 2) / 4;
         X1 = (AC3 * B6) / 8192;
@@ -180,7 +230,18 @@ public class BMP180 {
         p = p + (X1 + X2 + 3791) / 16;
         
         // And we have a result
-        return new Result ((int) p, (int) T);
+        result = new Result ((int) p, (int) T);
+        
+        return DONE;
+    }
+    
+    /**
+     * Get the result of the last conversion.
+     * @return A {@code BMP180.Result} object containing the values read.
+     */
+    public Result getResult ()
+    {
+        return result;
     }
  
     /** Largest read data sized used (in fact calibration data) */
@@ -203,11 +264,21 @@ public class BMP180 {
     private static final byte CMD_READ_TEMP = 0x2e;
     /** Command to request a pressure read */
     private static final byte CMD_READ_PRESSURE = 0x34;
+    /** How long it takes to read the pressure for each mode. */
+    private static final int DELAYS[] = {5, 8, 14, 26};
  
     /** The I2C device */
     private final I2CDevice device;
     /** Buffer used for reading results */
     private final byte[] buffer = new byte[BUFFER_SIZE];
+    /** The precision conversions use */
+    private int mode = 3;
+    /** Are we waiting for the pressure rather than the temperature? */
+    private boolean pressure_phase;
+    /** The temperature calculation carried over to the pressure */
+    private long B5;
+    /** The result of the last conversion */
+    private Result result;
     
     // Device specific calibration constants. These can't really be commented
     // on as they're just magic from the data sheet.
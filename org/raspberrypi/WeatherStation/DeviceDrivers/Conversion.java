@@ -0,0 +1,61 @@
+/*
+ * Copyright (C) 2016 Jim Darby and the Raspberry Pi Foundation.
+ *
+ * This software is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this software.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.raspberrypi.WeatherStation.DeviceDrivers;
+
+import java.io.IOException;
+
+import com.pi4j.wiringpi.Gpio;
+
+/**
+ * A reading from a device split into the part that starts it and the parts
+ * that collect it. Devices typically need tens of milliseconds between being
+ * asked and answering. Splitting the reading up lets something else use that
+ * time, such as starting another device.
+ * 
+ * @author Jim Darby
+ */
+public interface Conversion {
+    /** Returned by step when the conversion is complete. */
+    int DONE = -1;
+    
+    /**
+     * Start a conversion.
+     * @return How many milliseconds until step should be called.
+     * @throws IOException If something goes amiss talking to the device.
+     */
+    int start () throws IOException;
+    
+    /**
+     * Carry on with the conversion. This may collect the result or may start
+     * another phase of the conversion.
+     * @return How many milliseconds until step should be called again or
+     * {@code DONE} if the result is now available.
+     * @throws IOException If something goes amiss talking to the device.
+     */
+    int step () throws IOException;
+    
+    /**
+     * Run a whole conversion, waiting as needed.
+     * @throws IOException If something goes amiss talking to the device.
+     */
+    default void complete () throws IOException
+    {
+        for (int wait = start (); wait != DONE; wait = step ())
+            Gpio.delay (wait);
+    }
+}
@@ -0,0 +1,164 @@
+/*
+ * Copyright (C) 2016 Jim Darby and the Raspberry Pi Foundation.
+ *
+ * This software is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this software.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.raspberrypi.WeatherStation.DeviceDrivers;
+
+import java.io.IOException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.pi4j.wiringpi.Gpio;
+
+/**
+ * This class runs a number of conversions at once. All of them are started,
+ * then each is stepped when it's due, earliest first. The whole set takes
+ * about as long as the slowest rather than the sum of them all.
+ * 
+ * Everything happens on the calling thread so access to the I2C bus stays
+ * one device at a time.
+ * 
+ * @author Jim Darby
+ */
+public class ConversionScheduler {
+    /**
+     * Add a conversion to those run.
+     * @param conversion The conversion.
+     */
+    public void add (Conversion conversion)
+    {
+        if (conversion == null)
+            throw new IllegalArgumentException ("Invalid parameter to ConversionScheduler.add");
+        
+        conversions_.add (conversion);
+        
+        // Only grow when we have to so reusing a scheduler doesn't allocate.
+        if (conversions_.size () > due_.length) {
+            due_ = Arrays.copyOf (due_, conversions_.size ());
+            active_ = Arrays.copyOf (active_, conversions_.size ());
+        }
+    }
+    
+    /**
+     * Remove all the conversions so a different set can be added.
+     */
+    public void clear ()
+    {
+        conversions_.clear ();
+        errors_.clear ();
+    }
+    
+    /**
+     * Run all the conversions to completion. A conversion that fails is
+     * dropped and its exception kept for {@code check}.
+     */
+    public void run ()
+    {
+        final long began = System.nanoTime ();
+        final int count = conversions_.size ();
+        
+        errors_.clear ();
+        
+        // Start them all off.
+        for (int i = 0; i < count; ++i) {
+            active_[i] = false;
+            
+            try {
+                due_[i] = System.nanoTime () + conversions_.get (i).start () * NANOS_PER_MS;
+                active_[i] = true;
+            }
+            
+            catch (IOException e) {
+                errors_.put (conversions_.get (i), e);
+            }
+        }
+        
+        // Now step whichever is due next until they're all done.
+        while (true) {
+            int next = -1;
+            
+            for (int i = 0; i < count; ++i)
+                if (active_[i] && (next < 0 || due_[i] - due_[next] < 0))
+                    next = i;
+            
+            if (next < 0)
+                break;
+            
+            final long wait = due_[next] - System.nanoTime ();
+            
+            if (wait > 0)
+                Gpio.delay ((wait + NANOS_PER_MS - 1) / NANOS_PER_MS);
+            
+            final Conversion conversion = conversions_.get (next);
+            
+            try {
+                final int again = conversion.step ();
+                
+                if (again == Conversion.DONE)
+                    active_[next] = false;
+                else
+                    due_[next] = System.nanoTime () + again * NANOS_PER_MS;
+            }
+            
+            catch (IOException e) {
+                errors_.put (conversion, e);
+                active_[next] = false;
+            }
+        }
+        
+        lastNanos_ = System.nanoTime () - began;
+    }
+    
+    /**
+     * Check how a conversion went on the last run.
+     * @param conversion The conversion.
+     * @throws IOException The exception it failed with, if it did.
+     */
+    public void check (Conversion conversion) throws IOException
+    {
+        final IOException e = errors_.get (conversion);
+        
+        if (e != null)
+            throw e;
+    }
+    
+    /**
+     * Find out how long the last run took.
+     * @return The time in nanoseconds.
+     */
+    public long getLastNanos ()
+    {
+        return lastNanos_;
+    }
+    
+    /** Nanoseconds in a millisecond. */
+    private static final long NANOS_PER_MS = 1000000;
+    
+    /** The conversions we run. */
+    private final List<Conversion> conversions_ = new ArrayList<> ();
+    /** The failures from the last run. */
+    private final Map<Conversion, IOException> errors_ = new IdentityHashMap<> ();
+    /** When each conversion is next due, by System.nanoTime. */
+    private long[] due_ = new long[0];
+    /** Whether each conversion is still going. */
+    private boolean[] active_ = new boolean[0];
+    /** How long the last run took. */
+    private long lastNanos_;
+}
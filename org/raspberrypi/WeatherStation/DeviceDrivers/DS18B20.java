@@ -11,15 +11,21 @@ import java.io.BufferedReader;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 /**
- * This class is used to interface to the DS18B20 temperature sensor.
+ * This class is used to interface to the DS18B20 temperature sensor. Reading
+ * the sensor blocks in the kernel for the best part of a second, so when used
+ * as a {@code Conversion} the read is done on a background thread.
  * 
  * @author Jim Darby.
  */
-public class DS18B20 {
+public class DS18B20 implements Conversion {
     private static final Logger LOG = Logger.getLogger("DeviceDrivers.DS18B20");
     
     /**
@@ -149,6 +155,85 @@ public class DS18B20 {
         throw new MyException ("DS18B20: Unexpected EOF");
     }
     
+    /**
+     * Start a conversion. The read is done on a background thread.
+     * @return How many milliseconds until the result might be ready.
+     * @throws MyException If the device wasn't found.
+     */
+    @Override
+    public int start () throws MyException
+    {
+        if (file_ == null)
+            throw new MyException ("DS18B20: No file found");
+        
+        pending_ = READER.submit (this::read);
+        
+        return CONVERSION_MS;
+    }
+    
+    /**
+     * Collect the result if the background read has finished.
+     * @return {@code DONE} if we have the result, otherwise how many
+     * milliseconds until we should look again.
+     * @throws IOException If the read failed.
+     */
+    @Override
+    public int step () throws IOException
+    {
+        if (pending_ == null)
+            throw new MyException ("DS18B20: Conversion not started");
+        
+        if (!pending_.isDone ())
+            return POLL_MS;
+        
+        try {
+            temperature_ = pending_.get ();
+        }
+        
+        catch (ExecutionException e) {
+            if (e.getCause () instanceof IOException)
+                throw (IOException) e.getCause ();
+            
+            throw new MyException ("DS18B20: " + e.getCause ());
+        }
+        
+        catch (InterruptedException e) {
+            Thread.currentThread ().interrupt ();
+            throw new MyException ("DS18B20: Interrupted");
+        }
+        
+        finally {
+            pending_ = null;
+        }
+        
+        return DONE;
+    }
+    
+    /**
+     * Get the result of the last conversion.
+     * @return The temperature in degrees Celsius.
+     */
+    public double getTemperature ()
+    {
+        return temperature_;
+    }
+    
     static private final String DIR_NAME = "/sys/bus/w1/devices";
+    /** How long a conversion takes as per the data sheet */
+    static private final int CONVERSION_MS = 750;
+    /** How often we look for the result after that */
+    static private final int POLL_MS = 10;
+    /** The thread the reads are done on, shared by all devices */
+    static private final ExecutorService READER = Executors.newSingleThreadExecutor (r -> {
+        final Thread thread = new Thread (r, "DS18B20 reader");
+        
+        thread.setDaemon (true);
+        return thread;
+    });
+    
     private final String file_;
+    /** The read in progress, if any */
+    private Future<Double> pending_;
+    /** The result of the last conversion */
+    private double temperature_;
 }
\ No newline at end of file
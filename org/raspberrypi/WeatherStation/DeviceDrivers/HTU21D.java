@@ -18,7 +18,7 @@ import com.pi4j.wiringpi.Gpio;
  * 
  * @author Jim Darby.
  */
-public class HTU21D {
+public class HTU21D implements Conversion {
     /**
      * The {@code HTU21D.Result} class is used to return the result from a
      * reading of the HTU21D device. It is (typically) constructed by the
@@ -89,28 +89,56 @@ public class HTU21D {
      * @throws IOException If something goes amiss talking to the device.
      */
     public Result read () throws IOException
+    {
+        complete ();
+        
+        return result;
+    }
+    
+    /**
+     * Start a conversion. This starts reading the temperature.
+     * @return How many milliseconds until the temperature is ready.
+     * @throws IOException If something goes amiss talking to the device.
+     */
+    @Override
+    public int start () throws IOException
     {    
         // Start devive reading the temperature.
         device.write (CMD_READ_TEMP_NOHOLD);
+        humidity_phase = false;
         
         // The data sheet states that 50 mS is the maximum time to read the temperature.
-        Gpio.delay (50);
-        
-        // Grab data from the device
-        if (device.read (buffer, 0, 3) != 3)
-            throw new IOException ("HTU21D: Failed to read temperature");
-        
-        // Validate the checksum (CRC).
-        verify_crc (buffer);
-        
-        // Calculate the temperature as per the data sheet.
-        final double temperature = -46.85 + 175.72 * (((buffer[0] & 0xff) << 8) | (buffer[1] & 0xfc)) / 65536.0;
-        
-        // Start device reading the temperature
-        device.write (CMD_READ_HUMID_NOHOLD);
-        
-        // The data sheet states that 16 mS is the maximum time to read the humidity
-        Gpio.delay (16);
+        return 50;
+    }
+    
+    /**
+     * Carry on with the conversion. The first step collects the temperature
+     * and starts reading the humidity, the second collects the humidity.
+     * @return How many milliseconds until the humidity is ready or
+     * {@code DONE} when we have the result.
+     * @throws IOException If something goes amiss talking to the device.
+     */
+    @Override
+    public int step () throws IOException
+    {
+        if (!humidity_phase) {
+            // Grab data from the device
+            if (device.read (buffer, 0, 3) != 3)
+                throw new IOException ("HTU21D: Failed to read temperature");
+
+            // Validate the checksum (CRC).
+            verify_crc (buffer);
+
+            // Calculate the temperature as per the data sheet.
+            temperature = -46.85 + 175.72 * (((buffer[0] & 0xff) << 8) | (buffer[1] & 0xfc)) / 65536.0;
+
+            // Start device reading the temperature
+            device.write (CMD_READ_HUMID_NOHOLD);
+            humidity_phase = true;
+
+            // The data sheet states that 16 mS is the maximum time to read the humidity
+            return 16;
+        }
         
         // Grab the readings from the device.
         if (device.read (buffer, 0, 3) != 3)
@@ -122,9 +150,20 @@ public class HTU21D {
         // Calculate the basic humidity as per the datasheet.
         final double humidity = -6 + 125 * (((buffer[0] & 0xff) << 8) | (buffer[1] & 0xfc)) / 65536.0;
         
-        // Return the result including the temperature compensation to the
+        // Store the result including the temperature compensation to the
         // humidity as per the datasheet.
-        return new Result (humidity + (25 - temperature) * -0.15, temperature);
+        result = new Result (humidity + (25 - temperature) * -0.15, temperature);
+        
+        return DONE;
+    }
+    
+    /**
+     * Get the result of the last conversion.
+     * @return A {@code HTU21D.Result} object containing the values read.
+     */
+    public Result getResult ()
+    {
+        return result;
     }
     
     /**
@@ -179,4 +218,10 @@ public class HTU21D {
     private final I2CDevice device;
     /** The buffer area we use */
     private final byte buffer[] = new byte[3];
+    /** Are we waiting for the humidity rather than the temperature? */
+    private boolean humidity_phase;
+    /** The temperature carried over to the humidity compensation */
+    private double temperature;
+    /** The result of the last conversion */
+    private Result result;
  }
\ No newline at end of file
@@ -20,7 +20,7 @@ import java.util.logging.Level;
  * 
  * @author Jim Darby
  */
-public class MCP3427 {
+public class MCP3427 implements Conversion {
     /** The logger we use to report information */
     private static final Logger log = Logger.getLogger("DeviceDrivers.MCP3427");
         
@@ -44,7 +44,8 @@ public class MCP3427 {
     
     /**
      * Read the value of an analogue input. We normalise the value returned so
-     * that the actual voltage is the returned value * VREF / 32768.
+     * that the actual voltage is the returned value * VREF / 32768. What
+     * {@code setup} chose for {@code start} is left unchanged.
      * 
      * @param channel The channel to read: 0 or 1.
      * @param bits The bits resolution required: 12, 14 or 16.
@@ -54,9 +55,36 @@ public class MCP3427 {
      * on the I2C bus.
      */
     public int read (int channel, int bits, int gain) throws IOException
+    {
+        // Leave what start reads as it was.
+        final byte saved_command = command;
+        final int saved_bits = command_bits;
+        
+        setup (channel, bits, gain);
+        
+        try {
+            complete ();
+        }
+        
+        finally {
+            command = saved_command;
+            command_bits = saved_bits;
+        }
+        
+        return value;
+    }
+    
+    /**
+     * Set up what the conversions started by {@code start} read.
+     * 
+     * @param channel The channel to read: 0 or 1.
+     * @param bits The bits resolution required: 12, 14 or 16.
+     * @param gain The gain to be used: 1, 2, 4 or 8.
+     * @throws IOException In the case of an invalid parameter.
+     */
+    public void setup (int channel, int bits, int gain) throws IOException
     {
         byte config = CMD_START;
-        int delay;
         
         // Add the channel to the command.
         switch (channel) {
@@ -72,20 +100,17 @@ public class MCP3427 {
                 throw new IOException ("MCP3427@" + Integer.toHexString(dev_id) + ": Invalid channel");
         }
         
-        // Add the bits to the command and add in the current delay.
+        // Add the bits to the command.
         switch (bits) {
             case 12:
                 config |= CMD_BITS_12;
-                delay = delay12;
                 break;
                 
             case 14:
-                delay = delay14;
                 config |= CMD_BITS_14;
                 break;
                 
             case 16:
-                delay = delay16;
                 config |= CMD_BITS_16;
                 break;
                 
@@ -115,43 +140,60 @@ public class MCP3427 {
                 throw new IOException ("MCP3427@" + Integer.toHexString(dev_id) + ": Invalid gain");
         }
         
+        command = config;
+        command_bits = bits;
+    }
+    
+    /**
+     * Start a conversion as set up by {@code setup}.
+     * @return How many milliseconds until the result should be ready.
+     * @throws IOException If the device hasn't been set up or the I2C bus
+     * fails.
+     */
+    @Override
+    public int start () throws IOException
+    {
+        if (command_bits == 0)
+            throw new IOException ("MCP3427@" + Integer.toHexString(dev_id) + ": Not set up");
+        
         // Run the command
-        device.write (config);
+        device.write (command);
+        tries = 0;
+        
+        return delay ();
+    }
+    
+    /**
+     * Try to collect the result of the conversion.
+     * @return {@code DONE} if we have the result, otherwise how many
+     * milliseconds until we should try again.
+     * @throws IOException If the conversion failed or the I2C bus fails.
+     */
+    @Override
+    public int step () throws IOException
+    {
+        if (device.read (buffer, 0, 3) != 3)
+            throw new IOException ("MCP3427@" + Integer.toHexString(dev_id) + ": failed to read data");
         
-        // Wait for the response
-        Gpio.delay (delay);
+        if ((buffer[2] & 0x80) != 0) {
+            // Not ready yet.
+            tries += 1;
             
-        boolean ok = false;
-        boolean on_first = false;
-        
-        for (int tries = 0; tries < 10; ++tries) {
-            if (device.read (buffer, 0, 3) != 3)
-                throw new IOException ("MCP3427@" + Integer.toHexString(dev_id) + ": failed to read data");
-                   
-            if ((buffer[2] & 0x80) == 0) {
-                ok = true;
-                
-                if (tries == 0)
-                    on_first = true;
-                
-                if (tries > max_tries) {
-                    max_tries = tries;
-                    
-                    log.log (Level.FINE, "MCP3427@{0}: max tries now {1}", new Object[]{Integer.toHexString(dev_id), max_tries});
-                }
-                
-                break;
-            }
+            if (tries >= MAX_TRIES)
+                throw new IOException ("MCP3427@" + Integer.toHexString(dev_id) + ": Conversion failed");
             
-            Gpio.delay (delay / 10 + 1);
+            return delay () / 10 + 1;
         }
         
-        if (!ok)
-            throw new IOException ("MCP3427@" + Integer.toHexString(dev_id) + ": Conversion failed");
+        if (tries > max_tries) {
+            max_tries = tries;
+
+            log.log (Level.FINE, "MCP3427@{0}: max tries now {1}", new Object[]{Integer.toHexString(dev_id), max_tries});
+        }
         
         // If we didn't get it on the first time, bump up the delay
-        if (!on_first) {
-            switch (bits) {
+        if (tries > 0) {
+            switch (command_bits) {
                 case 12:
                     delay12 += 1;
                     log.log (Level.FINE, "MCP3427@{0}: delay 12 now {1}", new Object[]{Integer.toHexString(dev_id), delay12});
@@ -171,7 +213,36 @@ public class MCP3427 {
         
         // Note that we keep the sign extension of buffer[0] as the result is
         // a signed value.
-        return ((buffer [0]  << 8) | (buffer[1] & 0xff)) << (16 - bits);
+        value = ((buffer [0]  << 8) | (buffer[1] & 0xff)) << (16 - command_bits);
+        
+        return DONE;
+    }
+    
+    /**
+     * Get the result of the last conversion.
+     * @return The value read normalised to -32768 to 32767.
+     */
+    public int getValue ()
+    {
+        return value;
+    }
+    
+    /**
+     * Work out the current delay for the resolution we're set up for.
+     * @return The delay in milliseconds.
+     */
+    private int delay ()
+    {
+        switch (command_bits) {
+            case 12:
+                return delay12;
+                
+            case 14:
+                return delay14;
+                
+            default:
+                return delay16;
+        }
     }
     
     /** The highest value we can return */
@@ -189,6 +260,17 @@ public class MCP3427 {
     private final byte buffer[] = new byte[3];
     /** The maximum number of tries we have taken to get a reading */
     private int max_tries;
+    /** The number of tries so far on the current reading */
+    private int tries;
+    /** The command that starts a conversion, as set up */
+    private byte command;
+    /** The resolution we're set up for, 0 if not set up */
+    private int command_bits;
+    /** The result of the last conversion */
+    private int value;
+    
+    /** How many times we try to get a result before giving up */
+    private static final int MAX_TRIES = 10;
     
     /** The incomplete command to start a single-shot conversion */
     private static final byte CMD_START       = (byte) 0x80;
@@ -5,6 +5,11 @@
  */
 package org.raspberrypi.WeatherStation.DeviceDrivers;
 
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import com.pi4j.io.gpio.GpioController;
@@ -16,7 +21,18 @@ import com.pi4j.io.gpio.event.GpioPinDigitalStateChangeEvent;
 import com.pi4j.io.gpio.PinState;
 
 /**
- * This class is used to implement pulse counting on a GPIO input.
+ * This class is used to implement pulse counting on a GPIO input. As well as
+ * the count it keeps the time of each recent pulse in a ring buffer so that
+ * rates over short periods, such as gusts, can be worked out.
+ * 
+ * Nothing here takes a lock or waits. pi4j may call the listener from more
+ * than one thread at once so it only ever uses single atomic operations: the
+ * pin state is swapped, each pulse takes its number from the count and its
+ * slot in the ring is stamped with that number once the time is written.
+ * Readers check the stamp so a slot that hasn't been written yet, or has
+ * been written over since, is reported rather than returned. Readers take
+ * snapshots of the running totals, so a burst of pulses never waits behind
+ * a reader or the other way round.
  * @author Jim Darby
  */
 public class PulseCounter implements GpioPinListenerDigital {
@@ -72,14 +88,17 @@ public class PulseCounter implements GpioPinListenerDigital {
         in_ = gpio.provisionDigitalInputPin (pin, PinPullResistance.PULL_UP);
         
         // Take note of its initial state.
-        lastState_ = in_.getState();
+        lastState_.set (in_.getState());
+        
+        // No slot holds a pulse yet.
+        for (int i = 0; i < TIMESTAMPS; ++i)
+            sequences_.set (i, -1);
         
         // Set debounce time
         in_.setDebounce (debounce);
 
         // Initialise readings
-        count_ = 0;
-        readAt_ = System.nanoTime ();
+        readAt_.set (System.nanoTime ());
 
         // And use ourselves as the listener
         in_.addListener (this);
@@ -105,71 +124,165 @@ public class PulseCounter implements GpioPinListenerDigital {
     }
     
     /**
-     * Handle a pin change interrupt. Note that this is synchronized to avoid
-     * multiple access the to the count_ and readAt_ object variables.
+     * Handle a pin change interrupt. This only touches atomics and the
+     * timestamp ring. Anything odd is counted and reported later by
+     * {@code getResult} so we never log on the listener thread.
      * @param e The event we're looking at.
      */
     @Override
-    public synchronized void handleGpioPinDigitalStateChangeEvent (GpioPinDigitalStateChangeEvent e)
+    public void handleGpioPinDigitalStateChangeEvent (GpioPinDigitalStateChangeEvent e)
     {
         // What has happened?
         switch (e.getState ()) {
             case HIGH:
-                // We should come to HIGH from LOW.
-                if (lastState_ != PinState.LOW) {
-                    LOG.warning ("PulseCounter: Potentially missed a pulse (double HIGH)");
+                // Make a note that we're now in the HIGH state. We should
+                // come to HIGH from LOW.
+                if (lastState_.getAndSet (PinState.HIGH) != PinState.LOW) {
+                    doubleHigh_.incrementAndGet ();
                     
                     // Add 1 to the count as we (presumably) missed a LOW.
-                    count_ += 1;
+                    record (System.nanoTime ());
                 }
                 
-                // Make a note that we're now in the HIGH state.
-                lastState_ = PinState.HIGH;
-                
                 break;
                 
             case LOW:
                 // Increment the pulse count.
-                count_ += 1;
-                
-                // We should have come to LOW from HIGH.                
-                if (lastState_ != PinState.HIGH)
-                    LOG.warning ("PulseCounter: Potentially missed a pulse (double LOW)");
+                record (System.nanoTime ());
                 
-                // Make a note that we're now in the LOW state.
-                lastState_ = PinState.LOW;
+                // Make a note that we're now in the LOW state. We should have
+                // come to LOW from HIGH.
+                if (lastState_.getAndSet (PinState.LOW) != PinState.HIGH)
+                    doubleLow_.incrementAndGet ();
                 
                 break;
                 
             default:
                 // How did we get here?
-                LOG.warning ("Pin goes WHUT!");
+                unknown_.incrementAndGet ();
                 break;
         }
     }
     
     /**
-     * Obtain the result of the pulse counting. Note that this is a synchrnoized
-     * method to avoid multiple access to the count_ and readAt_ object
-     * variables.
+     * Obtain the result of the pulse counting. This swaps in the current
+     * totals and returns the difference from the last call so it never waits
+     * for the listener. Any oddities the listener has seen since the last
+     * call are logged here.
      * @return The result. 
      */
-    public synchronized Result getResult () {
+    public Result getResult () {
         final long now = System.nanoTime ();
+        final long pulses = pulses_.get ();
         
-        Result r = new Result (count_, now - readAt_);
-        count_ = 0;
-        readAt_ = now;
+        final Result r = new Result ((int) (pulses - readPulses_.getAndSet (pulses)), now - readAt_.getAndSet (now));
+        
+        report (doubleHigh_, "PulseCounter: Potentially missed a pulse (double HIGH)");
+        report (doubleLow_, "PulseCounter: Potentially missed a pulse (double LOW)");
+        report (unknown_, "Pin goes WHUT!");
         
         return r;
     }
     
+    /**
+     * Obtain the total number of pulses recorded since we started. Pulse
+     * {@code n} is the n'th of these, counting from zero. The time of the
+     * latest may still be being written.
+     * @return The number of pulses.
+     */
+    public long getPulses ()
+    {
+        return pulses_.get ();
+    }
+    
+    /**
+     * Obtain the oldest pulse whose time can still be held. Its slot may be
+     * being written over even so, which {@code getTimestamp} reports.
+     * @return The number of the pulse.
+     */
+    public long getOldest ()
+    {
+        return Math.max (0, pulses_.get () - TIMESTAMPS + 1);
+    }
+    
+    /**
+     * Obtain the time of a pulse. Only the most recent {@code TIMESTAMPS}
+     * pulses are held, and the very latest may not be written yet, so this
+     * can come back empty handed. Compare the pulse with {@code getOldest}
+     * to tell which happened.
+     * @param pulse The number of the pulse, less than {@code getPulses}.
+     * @return The time of the pulse as from {@code System.nanoTime} or
+     * {@code NOT_HELD} if the slot doesn't hold it.
+     */
+    public long getTimestamp (long pulse)
+    {
+        if (pulse < 0 || pulse >= pulses_.get ())
+            throw new IllegalArgumentException ("Invalid parameter to PulseCounter.getTimestamp");
+        
+        final int slot = (int) (pulse & (TIMESTAMPS - 1));
+        
+        // The stamp must be ours both before and after reading the time or a
+        // listener was writing over it meanwhile.
+        if (sequences_.get (slot) != pulse)
+            return NOT_HELD;
+        
+        final long when = timestamps_.get (slot);
+        
+        return (sequences_.get (slot) == pulse) ? when : NOT_HELD;
+    }
+    
+    /**
+     * Record the time of a pulse. Taking the number from the count gives
+     * each listener its own slot. The slot is marked empty while the time
+     * goes in and then stamped with the number.
+     * @param when The time as from {@code System.nanoTime}.
+     */
+    private void record (long when)
+    {
+        final long pulse = pulses_.getAndIncrement ();
+        final int slot = (int) (pulse & (TIMESTAMPS - 1));
+        
+        sequences_.set (slot, -1);
+        timestamps_.set (slot, when);
+        sequences_.set (slot, pulse);
+    }
+    
+    /**
+     * Log an oddity if the listener has seen any since last time.
+     * @param count The count of the oddity, which is reset.
+     * @param message The message to log.
+     */
+    private static void report (AtomicInteger count, String message)
+    {
+        final int seen = count.getAndSet (0);
+        
+        if (seen > 0)
+            LOG.log (Level.WARNING, "{0} ({1} times)", new Object[]{message, seen});
+    }
+    
+    /** How many pulse times we hold, a power of two. */
+    public static final int TIMESTAMPS = 4096;
+    /** What getTimestamp gives for a pulse it doesn't hold. */
+    public static final long NOT_HELD = Long.MIN_VALUE;
+    
     /** The Pin we're working with. */
     private final GpioPinDigitalInput in_;
-    /** The counts since the last read. */
-    private int count_;
+    /** The total pulses when we last read the data. */
+    private final AtomicLong readPulses_ = new AtomicLong ();
     /** When we last read the data. */
-    private long readAt_;
-    /** The pin state we last saw */
-    private PinState lastState_;
+    private final AtomicLong readAt_ = new AtomicLong ();
+    /** The pin state we last saw, only used by the listener */
+    private final AtomicReference<PinState> lastState_ = new AtomicReference<> ();
+    /** The times of the most recent pulses as a ring */
+    private final AtomicLongArray timestamps_ = new AtomicLongArray (TIMESTAMPS);
+    /** The pulse each slot of the ring holds, -1 if none */
+    private final AtomicLongArray sequences_ = new AtomicLongArray (TIMESTAMPS);
+    /** The number of pulses recorded in total */
+    private final AtomicLong pulses_ = new AtomicLong ();
+    /** The double HIGHs seen since the last read */
+    private final AtomicInteger doubleHigh_ = new AtomicInteger ();
+    /** The double LOWs seen since the last read */
+    private final AtomicInteger doubleLow_ = new AtomicInteger ();
+    /** The unexpected states seen since the last read */
+    private final AtomicInteger unknown_ = new AtomicInteger ();
 }
\ No newline at end of file
@@ -0,0 +1,93 @@
+/*
+ * Copyright (C) 2016 Jim Darby and the Raspberry Pi Foundation.
+ *
+ * This software is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this software.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.raspberrypi.WeatherStation;
+
+import org.raspberrypi.WeatherStation.DeviceDrivers.Conversion;
+import org.raspberrypi.WeatherStation.DeviceDrivers.DS18B20;
+
+/**
+ * The ground temperature sensor, a DS18B20.
+ * 
+ * @author Jim Darby
+ */
+public class GroundThermometer implements Sensor {
+    /**
+     * Create the sensor.
+     * @param ds18b20 The device.
+     * @param rollups Where to roll up the samples.
+     */
+    public GroundThermometer (DS18B20 ds18b20, RollupEngine rollups)
+    {
+        ds18b20_ = ds18b20;
+        rollups_ = rollups;
+        latest_ = -1000;
+    }
+    
+    @Override
+    public String getName ()
+    {
+        return "DS18B20";
+    }
+    
+    @Override
+    public Conversion getConversion ()
+    {
+        return ds18b20_;
+    }
+    
+    @Override
+    public void sample ()
+    {
+        latest_ = ds18b20_.getTemperature ();
+        readings_.add (latest_);
+        rollups_.add (Metric.GROUND_TEMPERATURE, latest_);
+    }
+    
+    @Override
+    public void reset ()
+    {
+        readings_.reset ();
+    }
+    
+    /**
+     * Get the temperature over the window.
+     * @return The temperature in degrees C or -1000 if there are no samples.
+     */
+    public double getTemperature ()
+    {
+        return readings_.getMean (-1000);
+    }
+    
+    /**
+     * Get the most recent temperature.
+     * @return The temperature in degrees C or -1000 if there isn't one.
+     */
+    public double getLatest ()
+    {
+        return latest_;
+    }
+    
+    /** The device. */
+    private final DS18B20 ds18b20_;
+    /** Where the samples are rolled up. */
+    private final RollupEngine rollups_;
+    /** The samples over the window. */
+    private final Statistics readings_ = new Statistics ();
+    /** The most recent temperature. */
+    private double latest_;
+}
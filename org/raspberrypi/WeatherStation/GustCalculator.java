@@ -0,0 +1,176 @@
+/*
+ * Copyright (C) 2016 Jim Darby and the Raspberry Pi Foundation.
+ *
+ * This software is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this software.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.raspberrypi.WeatherStation;
+
+import org.raspberrypi.WeatherStation.DeviceDrivers.PulseCounter;
+
+/**
+ * This class works out wind gusts from the times of the anemometer's pulses.
+ * A gust is the highest three second average speed, as the WMO defines it.
+ * As the average over a window can only go up when a pulse arrives we only
+ * need to look at windows ending on a pulse. Keeping a pointer to the oldest
+ * pulse in the window makes each pulse cost constant time.
+ * 
+ * It also gives the instantaneous speed from the time between the last two
+ * pulses.
+ * 
+ * @author Jim Darby
+ */
+public class GustCalculator {
+    /**
+     * Create a calculator.
+     * @param counter The anemometer's pulse counter.
+     * @param calibration How to turn pulses into speeds.
+     */
+    public GustCalculator (PulseCounter counter, Calibration calibration)
+    {
+        counter_ = counter;
+        calibration_ = calibration;
+        next_ = counter.getPulses ();
+        start_ = next_;
+        last_ = 0;
+        interval_ = 0;
+        peak_ = 0;
+    }
+    
+    /**
+     * Take account of any pulses since the last update. This should be
+     * called at least every {@code PulseCounter.TIMESTAMPS} pulses; if it
+     * falls further behind the pulses no longer held are skipped. A pulse
+     * whose time isn't written yet is left for the next update.
+     */
+    public void update ()
+    {
+        final long pulses = counter_.getPulses ();
+        
+        while (next_ < pulses) {
+            final long oldest = counter_.getOldest ();
+            
+            // If we've been left behind carry on from what's still held.
+            if (next_ < oldest)
+                next_ = oldest;
+            
+            if (start_ < oldest)
+                start_ = oldest;
+            
+            final long time = counter_.getTimestamp (next_);
+            
+            if (time == PulseCounter.NOT_HELD) {
+                if (overwritten (next_))
+                    continue;
+                
+                return;
+            }
+            
+            // Move the start of the window up to three seconds before this
+            // pulse.
+            long then;
+            
+            while ((then = counter_.getTimestamp (start_)) != PulseCounter.NOT_HELD &&
+                   time - then >= GUST_NANOS)
+                ++start_;
+            
+            if (then == PulseCounter.NOT_HELD) {
+                if (overwritten (start_))
+                    continue;
+                
+                return;
+            }
+            
+            final long in_window = next_ - start_ + 1;
+            
+            if (in_window > peak_)
+                peak_ = in_window;
+            
+            if (last_ != 0)
+                interval_ = time - last_;
+            
+            last_ = time;
+            ++next_;
+        }
+    }
+    
+    /**
+     * Work out why the time of a pulse wasn't held.
+     * @param pulse The pulse.
+     * @return True if it was written over, so going round again catches up,
+     * or false if it hasn't been written yet and we should wait for it.
+     */
+    private boolean overwritten (long pulse)
+    {
+        return pulse < counter_.getOldest ();
+    }
+    
+    /**
+     * Start a new period for the gust.
+     */
+    public void reset ()
+    {
+        peak_ = 0;
+    }
+    
+    /**
+     * Get the highest three second average speed since the last reset.
+     * @return The speed in km/h or -1000 if it's not known.
+     */
+    public double getGust ()
+    {
+        final double scale = calibration_.getPulsesToWindSpeed ();
+        
+        return (scale > 0) ? scale * peak_ * 1e9 / GUST_NANOS : -1000;
+    }
+    
+    /**
+     * Get the speed from the time between the last two pulses. If it's been
+     * longer than that since the last pulse the wind must have dropped so we
+     * use that time instead.
+     * @return The speed in km/h or -1000 if it's not known.
+     */
+    public double getSpeed ()
+    {
+        final double scale = calibration_.getPulsesToWindSpeed ();
+        
+        if (scale <= 0)
+            return -1000;
+        
+        if (interval_ == 0)
+            return 0;
+        
+        final long interval = Math.max (interval_, System.nanoTime () - last_);
+        
+        return scale * 1e9 / interval;
+    }
+    
+    /** The period a gust is averaged over in nanoseconds. */
+    private static final long GUST_NANOS = 3000000000L;
+    
+    /** The pulse counter. */
+    private final PulseCounter counter_;
+    /** The calibration. */
+    private final Calibration calibration_;
+    /** The next pulse to look at. */
+    private long next_;
+    /** The oldest pulse in the window. */
+    private long start_;
+    /** The time of the last pulse, zero if none. */
+    private long last_;
+    /** The time between the last two pulses, zero if unknown. */
+    private long interval_;
+    /** The most pulses in any window since the last reset. */
+    private long peak_;
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright (C) 2016 Jim Darby and the Raspberry Pi Foundation.
+ *
+ * This software is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this software.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.raspberrypi.WeatherStation;
+
+import org.raspberrypi.WeatherStation.DeviceDrivers.Conversion;
+import org.raspberrypi.WeatherStation.DeviceDrivers.HTU21D;
+
+/**
+ * The humidity and temperature sensor, an HTU21D.
+ * 
+ * @author Jim Darby
+ */
+public class Hygrometer implements Sensor {
+    /**
+     * Create the sensor.
+     * @param htu21d The device.
+     * @param rollups Where to roll up the samples.
+     */
+    public Hygrometer (HTU21D htu21d, RollupEngine rollups)
+    {
+        htu21d_ = htu21d;
+        rollups_ = rollups;
+        latestTemperature_ = -1000;
+        latestHumidity_ = -1000;
+    }
+    
+    @Override
+    public String getName ()
+    {
+        return "HTU21D";
+    }
+    
+    @Override
+    public Conversion getConversion ()
+    {
+        return htu21d_;
+    }
+    
+    @Override
+    public void sample ()
+    {
+        final HTU21D.Result th = htu21d_.getResult ();
+        
+        latestTemperature_ = th.getTemperature ();
+        latestHumidity_ = th.getHumidity ();
+        
+        temperature_.add (latestTemperature_);
+        humidity_.add (latestHumidity_);
+        rollups_.add (Metric.AMBIENT_TEMPERATURE, latestTemperature_);
+        rollups_.add (Metric.HUMIDITY, latestHumidity_);
+    }
+    
+    @Override
+    public void reset ()
+    {
+        temperature_.reset ();
+        humidity_.reset ();
+    }
+    
+    /**
+     * Get the temperature over the window.
+     * @return The temperature in degrees C or -1000 if there are no samples.
+     */
+    public double getTemperature ()
+    {
+        return temperature_.getMean (-1000);
+    }
+    
+    /**
+     * Get the humidity over the window.
+     * @return The relative humidity in percent or -1000 if there are no
+     * samples.
+     */
+    public double getHumidity ()
+    {
+        return humidity_.getMean (-1000);
+    }
+    
+    /**
+     * Get the most recent temperature.
+     * @return The temperature in degrees C or -1000 if there isn't one.
+     */
+    public double getLatestTemperature ()
+    {
+        return latestTemperature_;
+    }
+    
+    /**
+     * Get the most recent humidity.
+     * @return The relative humidity in percent or -1000 if there isn't one.
+     */
+    public double getLatestHumidity ()
+    {
+        return latestHumidity_;
+    }
+    
+    /** The device. */
+    private final HTU21D htu21d_;
+    /** Where the samples are rolled up. */
+    private final RollupEngine rollups_;
+    /** The temperatures over the window. */
+    private final Statistics temperature_ = new Statistics ();
+    /** The humidities over the window. */
+    private final Statistics humidity_ = new Statistics ();
+    /** The most recent temperature. */
+    private double latestTemperature_;
+    /** The most recent humidity. */
+    private double latestHumidity_;
+}
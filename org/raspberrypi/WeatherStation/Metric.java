@@ -0,0 +1,42 @@
+/*
+ * Copyright (C) 2016 Jim Darby and the Raspberry Pi Foundation.
+ *
+ * This software is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this software.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.raspberrypi.WeatherStation;
+
+/**
+ * The quantities the station measures that are rolled up over time. The
+ * names follow the columns of {@code WEATHER_MEASUREMENT}. Wind direction is
+ * handled separately as it needs circular statistics.
+ * 
+ * @author Jim Darby
+ */
+public enum Metric {
+    /** The air temperature in degrees C. */
+    AMBIENT_TEMPERATURE,
+    /** The ground temperature in degrees C. */
+    GROUND_TEMPERATURE,
+    /** The air quality in percent. */
+    AIR_QUALITY,
+    /** The air pressure in hPa. */
+    AIR_PRESSURE,
+    /** The relative humidity in percent. */
+    HUMIDITY,
+    /** The wind speed in km/h. */
+    WIND_SPEED,
+    /** The rain in mm. */
+    RAINFALL
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright (C) 2016 Jim Darby and the Raspberry Pi Foundation.
+ *
+ * This software is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this software.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.raspberrypi.WeatherStation;
+
+import org.raspberrypi.WeatherStation.DeviceDrivers.Conversion;
+import org.raspberrypi.WeatherStation.DeviceDrivers.PulseCounter;
+
+/**
+ * The rain gauge, which pulses each time its bucket tips.
+ * 
+ * @author Jim Darby
+ */
+public class RainGauge implements Sensor {
+    /**
+     * Create the sensor.
+     * @param counter The counter for its pulses.
+     * @param calibration How to turn pulses into rain.
+     * @param rollups Where to roll up the samples.
+     */
+    public RainGauge (PulseCounter counter, Calibration calibration, RollupEngine rollups)
+    {
+        counter_ = counter;
+        calibration_ = calibration;
+        rollups_ = rollups;
+        latest_ = -1;
+    }
+    
+    @Override
+    public String getName ()
+    {
+        return "Rain gauge";
+    }
+    
+    @Override
+    public Conversion getConversion ()
+    {
+        return null;
+    }
+    
+    @Override
+    public void sample ()
+    {
+        latest_ = counter_.getResult ().getCount ();
+        total_ += latest_;
+        
+        if (calibration_.getPulsesToMM () > 0)
+            rollups_.add (Metric.RAINFALL, latest_ * calibration_.getPulsesToMM ());
+    }
+    
+    @Override
+    public void reset ()
+    {
+        total_ = 0;
+    }
+    
+    /**
+     * Get the rain over the window.
+     * @return The rain in mm.
+     */
+    public double getRain ()
+    {
+        return total_ * calibration_.getPulsesToMM ();
+    }
+    
+    /**
+     * Get the rain over the most recent sample.
+     * @return The rain in mm or -1000 if it's not known.
+     */
+    public double getLatest ()
+    {
+        return (latest_ >= 0 && calibration_.getPulsesToMM () > 0) ? latest_ * calibration_.getPulsesToMM () : -1000;
+    }
+    
+    /** The pulse counter. */
+    private final PulseCounter counter_;
+    /** The calibration. */
+    private final Calibration calibration_;
+    /** Where the samples are rolled up. */
+    private final RollupEngine rollups_;
+    /** The number of pulses over the window. */
+    private long total_;
+    /** The number of pulses in the most recent sample, negative if none. */
+    private int latest_;
+}
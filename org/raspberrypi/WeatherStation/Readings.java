@@ -0,0 +1,143 @@
+/*
+ * Copyright (C) 2016 Jim Darby and the Raspberry Pi Foundation.
+ *
+ * This software is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this software.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.raspberrypi.WeatherStation;
+
+import java.time.ZonedDateTime;
+
+/**
+ * This class holds the readings taken on one sampling tick. It's what gets
+ * passed to anything listening for readings. Values that couldn't be read are
+ * -1000, as they are in the database.
+ * 
+ * @author Jim Darby
+ */
+public class Readings {
+    /**
+     * Create a set of readings.
+     * @param time When they were taken.
+     * @param windSpeed The wind speed over the tick in km/h.
+     * @param windDirection The wind direction in degrees.
+     * @param temperature The air temperature in degrees C.
+     * @param humidity The relative humidity in percent.
+     * @param pressure The pressure in hPa.
+     * @param groundTemperature The ground temperature in degrees C.
+     * @param rain The rain over the tick in mm.
+     */
+    public Readings (ZonedDateTime time, double windSpeed, double windDirection,
+                     double temperature, double humidity, double pressure,
+                     double groundTemperature, double rain)
+    {
+        time_ = time;
+        windSpeed_ = windSpeed;
+        windDirection_ = windDirection;
+        temperature_ = temperature;
+        humidity_ = humidity;
+        pressure_ = pressure;
+        groundTemperature_ = groundTemperature;
+        rain_ = rain;
+    }
+    
+    /**
+     * Get when the readings were taken.
+     * @return The time.
+     */
+    public ZonedDateTime getTime ()
+    {
+        return time_;
+    }
+    
+    /**
+     * Get the wind speed over the tick.
+     * @return The speed in km/h or -1000 if unknown.
+     */
+    public double getWindSpeed ()
+    {
+        return windSpeed_;
+    }
+    
+    /**
+     * Get the wind direction.
+     * @return The direction in degrees clockwise from north or -1000 if unknown.
+     */
+    public double getWindDirection ()
+    {
+        return windDirection_;
+    }
+    
+    /**
+     * Get the air temperature.
+     * @return The temperature in degrees C or -1000 if unknown.
+     */
+    public double getTemperature ()
+    {
+        return temperature_;
+    }
+    
+    /**
+     * Get the relative humidity.
+     * @return The humidity in percent or -1000 if unknown.
+     */
+    public double getHumidity ()
+    {
+        return humidity_;
+    }
+    
+    /**
+     * Get the pressure.
+     * @return The pressure in hPa or -1000 if unknown.
+     */
+    public double getPressure ()
+    {
+        return pressure_;
+    }
+    
+    /**
+     * Get the ground temperature.
+     * @return The temperature in degrees C or -1000 if unknown.
+     */
+    public double getGroundTemperature ()
+    {
+        return groundTemperature_;
+    }
+    
+    /**
+     * Get the rain that fell during the tick.
+     * @return The rain in mm or -1000 if unknown.
+     */
+    public double getRain ()
+    {
+        return rain_;
+    }
+    
+    /** When the readings were taken. */
+    private final ZonedDateTime time_;
+    /** The wind speed in km/h. */
+    private final double windSpeed_;
+    /** The wind direction in degrees. */
+    private final double windDirection_;
+    /** The air temperature in degrees C. */
+    private final double temperature_;
+    /** The relative humidity in percent. */
+    private final double humidity_;
+    /** The pressure in hPa. */
+    private final double pressure_;
+    /** The ground temperature in degrees C. */
+    private final double groundTemperature_;
+    /** The rain in mm. */
+    private final double rain_;
+}
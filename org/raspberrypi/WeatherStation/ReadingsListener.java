@@ -0,0 +1,33 @@
+/*
+ * Copyright (C) 2016 Jim Darby and the Raspberry Pi Foundation.
+ *
+ * This software is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this software.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.raspberrypi.WeatherStation;
+
+/**
+ * Something that wants to know about each set of readings as it's taken.
+ * Listeners are called on the sampling thread so they must return quickly;
+ * anything slow should be handed off to another thread.
+ * 
+ * @author Jim Darby
+ */
+public interface ReadingsListener {
+    /**
+     * Called with each new set of readings.
+     * @param readings The readings.
+     */
+    void readings (Readings readings);
+}
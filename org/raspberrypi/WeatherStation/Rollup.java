@@ -0,0 +1,199 @@
+/*
+ * Copyright (C) 2016 Jim Darby and the Raspberry Pi Foundation.
+ *
+ * This software is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this software.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.raspberrypi.WeatherStation;
+
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * This class holds the statistics of every metric over one window of time,
+ * such as a particular hour.
+ * 
+ * @author Jim Darby
+ */
+public class Rollup {
+    /**
+     * The lengths of window we roll up over. Windows line up with the clock
+     * so, for example, hours start on the hour.
+     */
+    public enum Resolution {
+        /** A minute. */
+        MINUTE,
+        /** Ten minutes, the same as the reports. */
+        TEN_MINUTES,
+        /** An hour. */
+        HOUR,
+        /** A day, from midnight local time. */
+        DAY;
+        
+        /**
+         * Find the start of the window a time is in.
+         * @param time The time.
+         * @return The start of its window.
+         */
+        public ZonedDateTime start (ZonedDateTime time)
+        {
+            switch (this) {
+                case MINUTE:
+                    return time.truncatedTo (ChronoUnit.MINUTES);
+                    
+                case TEN_MINUTES:
+                    return time.truncatedTo (ChronoUnit.MINUTES).withMinute (time.getMinute () / 10 * 10);
+                    
+                case HOUR:
+                    return time.truncatedTo (ChronoUnit.HOURS);
+                    
+                default:
+                    return time.toLocalDate ().atStartOfDay (time.getZone ());
+            }
+        }
+        
+        /**
+         * Find the end of the window starting at a time.
+         * @param start The start of the window.
+         * @return The start of the next window.
+         */
+        public ZonedDateTime end (ZonedDateTime start)
+        {
+            switch (this) {
+                case MINUTE:
+                    return start.plusMinutes (1);
+                    
+                case TEN_MINUTES:
+                    return start.plusMinutes (10);
+                    
+                case HOUR:
+                    return start.plusHours (1);
+                    
+                default:
+                    return start.toLocalDate ().plusDays (1).atStartOfDay (start.getZone ());
+            }
+        }
+    }
+    
+    /**
+     * Create an empty rollup.
+     * @param resolution The length of the window.
+     * @param start The start of the window.
+     */
+    public Rollup (Resolution resolution, ZonedDateTime start)
+    {
+        resolution_ = resolution;
+        start_ = start;
+        end_ = resolution.end (start);
+        metrics_ = new Statistics[Metric.values ().length];
+        direction_ = new CircularStatistics ();
+        
+        for (int i = 0; i < metrics_.length; ++i)
+            metrics_[i] = new Statistics ();
+    }
+    
+    /**
+     * Create a copy of a rollup.
+     * @param other The rollup to copy.
+     */
+    public Rollup (Rollup other)
+    {
+        resolution_ = other.resolution_;
+        start_ = other.start_;
+        end_ = other.end_;
+        metrics_ = new Statistics[other.metrics_.length];
+        direction_ = new CircularStatistics (other.direction_);
+        
+        for (int i = 0; i < metrics_.length; ++i)
+            metrics_[i] = new Statistics (other.metrics_[i]);
+    }
+    
+    /**
+     * Add a sample of a metric.
+     * @param metric The metric.
+     * @param value The value.
+     */
+    public void add (Metric metric, double value)
+    {
+        metrics_[metric.ordinal ()].add (value);
+    }
+    
+    /**
+     * Add a sample of the wind direction.
+     * @param degrees The direction in degrees.
+     */
+    public void addDirection (double degrees)
+    {
+        direction_.add (degrees);
+    }
+    
+    /**
+     * Get the length of the window.
+     * @return The resolution.
+     */
+    public Resolution getResolution ()
+    {
+        return resolution_;
+    }
+    
+    /**
+     * Get the start of the window.
+     * @return The start.
+     */
+    public ZonedDateTime getStart ()
+    {
+        return start_;
+    }
+    
+    /**
+     * Get the end of the window.
+     * @return The end, which is the start of the next window.
+     */
+    public ZonedDateTime getEnd ()
+    {
+        return end_;
+    }
+    
+    /**
+     * Get the statistics of a metric over the window. These must not be
+     * changed.
+     * @param metric The metric.
+     * @return The statistics.
+     */
+    public Statistics get (Metric metric)
+    {
+        return metrics_[metric.ordinal ()];
+    }
+    
+    /**
+     * Get the statistics of the wind direction over the window. These must
+     * not be changed.
+     * @return The statistics.
+     */
+    public CircularStatistics getDirection ()
+    {
+        return direction_;
+    }
+    
+    /** The length of the window. */
+    private final Resolution resolution_;
+    /** The start of the window. */
+    private final ZonedDateTime start_;
+    /** The end of the window. */
+    private final ZonedDateTime end_;
+    /** The statistics for each metric, by ordinal. */
+    private final Statistics[] metrics_;
+    /** The statistics for the wind direction. */
+    private final CircularStatistics direction_;
+}
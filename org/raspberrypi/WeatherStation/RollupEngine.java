@@ -0,0 +1,175 @@
+/*
+ * Copyright (C) 2016 Jim Darby and the Raspberry Pi Foundation.
+ *
+ * This software is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this software.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.raspberrypi.WeatherStation;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * This class keeps rollups of the samples at each resolution. Every sample
+ * goes straight into the open window of each resolution, so the current
+ * minute, hour and day are always up to date and nothing ever needs to be
+ * rescanned. When a window's time is up it's passed to the listeners and
+ * kept as the last one for that resolution.
+ * 
+ * @author Jim Darby
+ */
+public class RollupEngine {
+    /**
+     * Create an engine working in the system's time zone.
+     */
+    public RollupEngine ()
+    {
+        this (ZoneId.systemDefault ());
+    }
+    
+    /**
+     * Create an engine.
+     * @param zone The time zone windows line up with.
+     */
+    public RollupEngine (ZoneId zone)
+    {
+        final Rollup.Resolution[] resolutions = Rollup.Resolution.values ();
+        final ZonedDateTime now = ZonedDateTime.now (zone);
+        
+        zone_ = zone;
+        current_ = new Rollup[resolutions.length];
+        last_ = new Rollup[resolutions.length];
+        ends_ = new long[resolutions.length];
+        
+        for (Rollup.Resolution resolution : resolutions)
+            open (resolution, now);
+    }
+    
+    /**
+     * Add a listener for windows closing.
+     * @param listener The listener.
+     */
+    public void addListener (RollupListener listener)
+    {
+        if (listener == null)
+            throw new IllegalArgumentException ("Invalid parameter to RollupEngine.addListener");
+        
+        listeners_.add (listener);
+    }
+    
+    /**
+     * Add a sample of a metric taken now.
+     * @param metric The metric.
+     * @param value The value.
+     */
+    public synchronized void add (Metric metric, double value)
+    {
+        advance (System.currentTimeMillis ());
+        
+        for (Rollup rollup : current_)
+            rollup.add (metric, value);
+    }
+    
+    /**
+     * Add a sample of the wind direction taken now.
+     * @param degrees The direction in degrees.
+     */
+    public synchronized void addDirection (double degrees)
+    {
+        advance (System.currentTimeMillis ());
+        
+        for (Rollup rollup : current_)
+            rollup.addDirection (degrees);
+    }
+    
+    /**
+     * Close any windows whose time is up. This happens anyway when samples
+     * are added but calling it regularly makes sure windows close on time
+     * even if there are no samples.
+     * @param millis The time now as from {@code System.currentTimeMillis}.
+     */
+    public synchronized void advance (long millis)
+    {
+        // The minute always ends first so this is the usual way out.
+        if (millis < ends_[0])
+            return;
+        
+        ZonedDateTime now = null;
+        
+        for (Rollup.Resolution resolution : Rollup.Resolution.values ()) {
+            final int i = resolution.ordinal ();
+            
+            if (millis >= ends_[i]) {
+                if (now == null)
+                    now = ZonedDateTime.ofInstant (Instant.ofEpochMilli (millis), zone_);
+                
+                last_[i] = current_[i];
+                
+                for (RollupListener listener : listeners_)
+                    listener.closed (last_[i]);
+                
+                // If we've been away for a while skip the empty windows.
+                open (resolution, now);
+            }
+        }
+    }
+    
+    /**
+     * Get a copy of the open window for a resolution, such as the day so far.
+     * @param resolution The resolution.
+     * @return The rollup so far.
+     */
+    public synchronized Rollup getCurrent (Rollup.Resolution resolution)
+    {
+        return new Rollup (current_[resolution.ordinal ()]);
+    }
+    
+    /**
+     * Get the last window to close for a resolution, such as yesterday.
+     * @param resolution The resolution.
+     * @return The rollup or null if none has closed yet.
+     */
+    public synchronized Rollup getLast (Rollup.Resolution resolution)
+    {
+        return last_[resolution.ordinal ()];
+    }
+    
+    /**
+     * Open a new window.
+     * @param resolution The resolution.
+     * @param now The time in the window.
+     */
+    private void open (Rollup.Resolution resolution, ZonedDateTime now)
+    {
+        final Rollup rollup = new Rollup (resolution, resolution.start (now));
+        
+        current_[resolution.ordinal ()] = rollup;
+        ends_[resolution.ordinal ()] = rollup.getEnd ().toInstant ().toEpochMilli ();
+    }
+    
+    /** The time zone windows line up with. */
+    private final ZoneId zone_;
+    /** The open window for each resolution, by ordinal. */
+    private final Rollup[] current_;
+    /** The last window to close for each resolution, by ordinal. */
+    private final Rollup[] last_;
+    /** When each open window ends in milliseconds, by ordinal. */
+    private final long[] ends_;
+    /** The listeners. */
+    private final List<RollupListener> listeners_ = new CopyOnWriteArrayList<> ();
+}
@@ -0,0 +1,55 @@
+/*
+ * Copyright (C) 2016 Jim Darby and the Raspberry Pi Foundation.
+ *
+ * This software is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this software.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.raspberrypi.WeatherStation;
+
+import java.io.IOException;
+
+import org.raspberrypi.WeatherStation.DeviceDrivers.Conversion;
+
+/**
+ * Something the station samples. A sensor may need a conversion run on its
+ * device first, after which it takes the result and adds it to what it has
+ * gathered over the current reporting window.
+ * 
+ * @author Jim Darby
+ */
+public interface Sensor {
+    /**
+     * Get the name of the sensor for reporting problems.
+     * @return The name.
+     */
+    String getName ();
+    
+    /**
+     * Get the conversion to run before sampling.
+     * @return The conversion or null if {@code sample} can read directly.
+     */
+    Conversion getConversion ();
+    
+    /**
+     * Take a sample. This is called once the conversion, if there is one, has
+     * completed successfully.
+     * @throws IOException If the sample can't be taken.
+     */
+    void sample () throws IOException;
+    
+    /**
+     * Start a new reporting window, forgetting what has been gathered.
+     */
+    void reset ();
+}
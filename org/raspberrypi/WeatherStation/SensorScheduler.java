@@ -0,0 +1,148 @@
+/*
+ * Copyright (C) 2016 Jim Darby and the Raspberry Pi Foundation.
+ *
+ * This software is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this software.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.raspberrypi.WeatherStation;
+
+import java.io.IOException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.raspberrypi.WeatherStation.DeviceDrivers.Conversion;
+import org.raspberrypi.WeatherStation.DeviceDrivers.ConversionScheduler;
+
+/**
+ * This class samples each sensor at its own rate. Whenever it's polled it
+ * runs the conversions of all the sensors that are due together, so they
+ * overlap, and then has each of them take its sample. Sensors that aren't
+ * due cost nothing.
+ * 
+ * @author Jim Darby
+ */
+public class SensorScheduler {
+    private static final Logger LOG = Logger.getLogger("WeatherStation.SensorScheduler");
+    
+    /**
+     * Add a sensor. It's first sampled on the next poll.
+     * @param sensor The sensor.
+     * @param period How often to sample it in milliseconds.
+     */
+    public void add (Sensor sensor, long period)
+    {
+        if (sensor == null || period <= 0)
+            throw new IllegalArgumentException ("Invalid parameter to SensorScheduler.add");
+        
+        entries_.add (new Entry (sensor, period * NANOS_PER_MS, System.nanoTime ()));
+    }
+    
+    /**
+     * Sample all the sensors that are due.
+     * @return How many milliseconds until the next sensor is due or
+     * {@code Long.MAX_VALUE} if there are no sensors.
+     */
+    public long poll ()
+    {
+        final long now = System.nanoTime ();
+        
+        // Run the conversions of everything due together.
+        conversions_.clear ();
+        due_.clear ();
+        
+        for (Entry entry : entries_)
+            if (now - entry.due_ >= 0) {
+                due_.add (entry);
+                
+                final Conversion conversion = entry.sensor_.getConversion ();
+                
+                if (conversion != null)
+                    conversions_.add (conversion);
+            }
+        
+        conversions_.run ();
+        
+        // Then sample them.
+        for (Entry entry : due_) {
+            final Sensor sensor = entry.sensor_;
+            
+            try {
+                final Conversion conversion = sensor.getConversion ();
+                
+                if (conversion != null)
+                    conversions_.check (conversion);
+                
+                sensor.sample ();
+            }
+            
+            catch (IOException e) {
+                LOG.log (Level.WARNING, "{0} read failed: {1}", new Object[]{sensor.getName (), e.getMessage ()});
+            }
+            
+            // Keep to the period without drifting. If we've fallen behind
+            // skip the samples we've missed.
+            entry.due_ += entry.period_;
+            
+            if (now - entry.due_ >= 0)
+                entry.due_ += ((now - entry.due_) / entry.period_ + 1) * entry.period_;
+        }
+        
+        // When's the next one?
+        final long after = System.nanoTime ();
+        long next = Long.MAX_VALUE;
+        
+        for (Entry entry : entries_)
+            next = Math.min (next, Math.max (0, entry.due_ - after));
+        
+        return (next == Long.MAX_VALUE) ? Long.MAX_VALUE : (next + NANOS_PER_MS - 1) / NANOS_PER_MS;
+    }
+    
+    /**
+     * This class holds a sensor and when it's next due.
+     */
+    private static class Entry {
+        /**
+         * Create an entry.
+         * @param sensor The sensor.
+         * @param period The period in nanoseconds.
+         * @param due When it's first due, by System.nanoTime.
+         */
+        public Entry (Sensor sensor, long period, long due)
+        {
+            sensor_ = sensor;
+            period_ = period;
+            due_ = due;
+        }
+        
+        /** The sensor. */
+        private final Sensor sensor_;
+        /** The period in nanoseconds. */
+        private final long period_;
+        /** When it's next due, by System.nanoTime. */
+        private long due_;
+    }
+    
+    /** Nanoseconds in a millisecond. */
+    private static final long NANOS_PER_MS = 1000000;
+    
+    /** The sensors. */
+    private final List<Entry> entries_ = new ArrayList<> ();
+    /** The sensors due on this poll. */
+    private final List<Entry> due_ = new ArrayList<> ();
+    /** Runs the conversions of the sensors due. */
+    private final ConversionScheduler conversions_ = new ConversionScheduler ();
+}
@@ -0,0 +1,159 @@
+/*
+ * Copyright (C) 2016 Jim Darby and the Raspberry Pi Foundation.
+ *
+ * This software is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this software.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.raspberrypi.WeatherStation;
+
+/**
+ * This class gathers the count, mean, minimum, maximum and variance of a
+ * stream of values as they arrive. It uses Welford's method so it needs no
+ * storage for the values and stays accurate however many there are.
+ * 
+ * @author Jim Darby
+ */
+public class Statistics {
+    /**
+     * Create an empty set of statistics.
+     */
+    public Statistics ()
+    {
+        reset ();
+    }
+    
+    /**
+     * Create a copy of a set of statistics.
+     * @param other The statistics to copy.
+     */
+    public Statistics (Statistics other)
+    {
+        count_ = other.count_;
+        mean_ = other.mean_;
+        m2_ = other.m2_;
+        min_ = other.min_;
+        max_ = other.max_;
+    }
+    
+    /**
+     * Add a value.
+     * @param value The value.
+     */
+    public void add (double value)
+    {
+        count_ += 1;
+        
+        final double delta = value - mean_;
+        
+        mean_ += delta / count_;
+        m2_ += delta * (value - mean_);
+        
+        if (value < min_)
+            min_ = value;
+        
+        if (value > max_)
+            max_ = value;
+    }
+    
+    /**
+     * Forget all the values.
+     */
+    public void reset ()
+    {
+        count_ = 0;
+        mean_ = 0;
+        m2_ = 0;
+        min_ = Double.POSITIVE_INFINITY;
+        max_ = Double.NEGATIVE_INFINITY;
+    }
+    
+    /**
+     * Get the number of values.
+     * @return The count.
+     */
+    public long getCount ()
+    {
+        return count_;
+    }
+    
+    /**
+     * Get the mean of the values.
+     * @param missing The value to return if there are no values.
+     * @return The mean or {@code missing} if there are none.
+     */
+    public double getMean (double missing)
+    {
+        return (count_ > 0) ? mean_ : missing;
+    }
+    
+    /**
+     * Get the total of the values.
+     * @return The total, which is zero if there are none.
+     */
+    public double getTotal ()
+    {
+        return mean_ * count_;
+    }
+    
+    /**
+     * Get the smallest value.
+     * @param missing The value to return if there are no values.
+     * @return The minimum or {@code missing} if there are none.
+     */
+    public double getMin (double missing)
+    {
+        return (count_ > 0) ? min_ : missing;
+    }
+    
+    /**
+     * Get the largest value.
+     * @param missing The value to return if there are no values.
+     * @return The maximum or {@code missing} if there are none.
+     */
+    public double getMax (double missing)
+    {
+        return (count_ > 0) ? max_ : missing;
+    }
+    
+    /**
+     * Get the sample variance of the values.
+     * @param missing The value to return if there are fewer than two values.
+     * @return The variance or {@code missing}.
+     */
+    public double getVariance (double missing)
+    {
+        return (count_ > 1) ? m2_ / (count_ - 1) : missing;
+    }
+    
+    /**
+     * Get the sample standard deviation of the values.
+     * @param missing The value to return if there are fewer than two values.
+     * @return The standard deviation or {@code missing}.
+     */
+    public double getStandardDeviation (double missing)
+    {
+        return (count_ > 1) ? Math.sqrt (m2_ / (count_ - 1)) : missing;
+    }
+    
+    /** The number of values. */
+    private long count_;
+    /** The running mean. */
+    private double mean_;
+    /** The running sum of squared differences from the mean. */
+    private double m2_;
+    /** The smallest value. */
+    private double min_;
+    /** The largest value. */
+    private double max_;
+}
@@ -36,7 +36,8 @@ import com.pi4j.wiringpi.Gpio;
 import com.pi4j.system.SystemInfo;
 import com.pi4j.system.SystemInfo.BoardType;
 
-import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -135,33 +136,6 @@ public class WeatherStation {
             BMP180  bmp180 = null;
             HTU21D  hdu21d = null;
             
-            long rain_total = 0;
-            
-            // Air quality readings
-            int air_readings = 0;
-            double air_total = 0;
-            
-            // Wind speed.
-            int wind_readings = 0;
-            double wind_time = 0;
-            int wind_total = 0;
-            double wind_peak = 0;
-            ArrayList <Double> wind_directions = new ArrayList <> ();
-            
-            // BMP180 readings
-            int bmp180_readings = 0;
-            double bmp180_total = 0;
-            double pressure_total = 0;
- 
-            // HDR21D readings
-            int htu21d_readings = 0;
-            double htu21d_total = 0;
-            double humidity_total = 0;
-            
-            // DS18B20 readings
-            int temp3_readings = 0;
-            double temp3_total = 0;
-            
             // Tens of minutes past the hour we last reported, negative for not
             int last_tens_past = -100;
             boolean sample_complete = false;
@@ -202,206 +176,170 @@ public class WeatherStation {
                 log.log (Level.WARNING, "HTU21D not available: {0}", e.getMessage ());
             }
             
-            while (true) {                
-                database.updateConfig ();
-                
-                if (rain_counter != null) {
-                    PulseCounter.Result rain = rain_counter.getResult ();
-
-                    rain_total += rain.getCount ();
-                }
-                
-                if (wind_counter != null) {
-                    PulseCounter.Result wind = wind_counter.getResult ();
-                
-                    final double wind_elapsed = wind.getNanoseconds () / 1e9;
-                    final double wind_rate = wind.getCount () / wind_elapsed;
-                
-                    wind_readings += 1;
-                    wind_total += wind.getCount();
-                    wind_time += wind_elapsed;
-                
-                    if (wind_rate > wind_peak)
-                        wind_peak = wind_rate;
-                }
+            // Each sensor is sampled at its own rate.
+            final SensorScheduler sensors = new SensorScheduler ();
+            
+            final Anemometer anemometer = new Anemometer (wind_counter, calibration, rollups);
+            final RainGauge rain_gauge = new RainGauge (rain_counter, calibration, rollups);
+            WindVane wind_vane = null;
+            AirQuality air_quality = null;
+            Barometer barometer = null;
+            Hygrometer hygrometer = null;
+            GroundThermometer ground = null;
+            
+            sensors.add (anemometer, WIND_SPEED_PERIOD);
+            sensors.add (rain_gauge, RAIN_PERIOD);
+            
+            if (adc1 != null) {
+                adc1.setup (1, 16, 1);
+                wind_vane = new WindVane (adc1, direction, rollups);
+                sensors.add (wind_vane, WIND_DIRECTION_PERIOD);
+            }
+            
+            if (adc2 != null) {
+                adc2.setup (1, 16, 1);
+                air_quality = new AirQuality (adc2, rollups);
+                sensors.add (air_quality, AIR_QUALITY_PERIOD);
+            }
+            
+            if (bmp180 != null) {
+                bmp180.setMode (3);
+                barometer = new Barometer (bmp180, rollups);
+                sensors.add (barometer, PRESSURE_PERIOD);
+            }
+            
+            if (hdu21d != null) {
+                hygrometer = new Hygrometer (hdu21d, rollups);
+                sensors.add (hygrometer, HUMIDITY_PERIOD);
+            }
+            
+            if (ds18b20.ok ()) {
+                ground = new GroundThermometer (ds18b20, rollups);
+                sensors.add (ground, GROUND_TEMPERATURE_PERIOD);
+            }
+            
+            // The next ten second tick, on which we do the housekeeping.
+            long tick = System.currentTimeMillis ();
+            
+            while (true) {
+                final long wait = sensors.poll ();
                 
-                if (adc1 != null) {
-                    try {
-                        final int wind_adc = adc1.read (1, 16, 1);
-                        final double wind_dir = direction.angleFromADC (wind_adc);
+                if (System.currentTimeMillis () >= tick) {
+                    database.updateConfig ();
                     
-                        if (wind_dir >= 0)
-                            wind_directions.add (wind_dir);
-                    }
+                    // Close any rollup windows that are due even if there
+                    // have been no samples.
+                    rollups.advance (System.currentTimeMillis ());
                     
-                    catch (IOException e) {
-                        log.log (Level.WARNING, "Wind direction read failed: {0}", e.getMessage ());
-                    }
-                }
-                
-                if (adc2 != null) {
-                    try {
-                        final int air_quality = adc2.read (1, 16, 1);
-                        
-                        air_readings += 1;
-                        air_total += air_quality;
-                    }
+                    ZonedDateTime now = ZonedDateTime.now ();
+                    final int tens_past = now.getMinute () / 10;
                     
-                    catch (IOException e) {
-                        log.log (Level.WARNING, "Air quality read failed: {0}", e.getMessage ());
-                    }
-                }
-                
-                if (bmp180 != null) {
-                    try {
-                        BMP180.Result tp = bmp180.read (3);
-
-                        bmp180_readings += 1;
-                        bmp180_total += tp.getTemperature () / 10.0;
-                        pressure_total += tp.getPressure () / 100.0;
-                    }
+                    // Pass on the latest readings. The HTU21D is the better
+                    // thermometer so it wins.
+                    double temperature = (hygrometer != null) ? hygrometer.getLatestTemperature () : -1000;
                     
-                    catch (IOException e) {
-                        log.log (Level.WARNING, "BMP180 read failed: {0}", e.getMessage());
-                    }
-                }
-                
-                if (hdu21d != null) {
-                    try {
-                        HTU21D.Result th = hdu21d.read ();
-
-                        htu21d_readings += 1;
-                        htu21d_total += th.getTemperature ();
-                        humidity_total += th.getHumidity ();
-                    }
+                    if (temperature <= -1000 && barometer != null)
+                        temperature = barometer.getLatestTemperature ();
                     
-                    catch (IOException e) {
-                        log.log(Level.WARNING, "HDU21D read failed: {0}", e.getMessage());
-                    }
-                }
-                
-                if (ds18b20.ok ()) {
-                    try {
-                        final double temp3 = ds18b20.read ();
-                       
-                        temp3_readings += 1;
-                        temp3_total += temp3;
-                    }
+                    publish (new Readings (now, anemometer.getLatest (),
+                            (wind_vane != null) ? wind_vane.getLatest () : -1000,
+                            temperature,
+                            (hygrometer != null) ? hygrometer.getLatestHumidity () : -1000,
+                            (barometer != null) ? barometer.getLatestPressure () : -1000,
+                            (ground != null) ? ground.getLatest () : -1000,
+                            rain_gauge.getLatest ()));
                     
-                    catch (IOException e) {
-                        log.log (Level.WARNING, "DS18B20 read failed: {0}", e.getMessage());
-                    }
-                }
-                
-                ZonedDateTime now = ZonedDateTime.now ();
-                final int tens_past = now.getMinute () / 10;
-                
-                if (last_tens_past < 0)
-                    last_tens_past = tens_past;
-                
-                if (tens_past != last_tens_past) {
-                    boolean reset_data = false;
+                    if (last_tens_past < 0)
+                        last_tens_past = tens_past;
                     
-                    // Only report if we completed a full ten minute run.
-                    // Otherwise data (e.g. rain rate) may be falsly low.
-                    if (sample_complete) {
-                        final double wind_scale = calibration.getPulsesToWindSpeed();
-                        final double wind_speed = (wind_readings > 0 && wind_scale > 0) ? (wind_scale * wind_total / wind_time) : -1000;
-                        final double air_quality = (air_readings   > 0) ? 100 * (1 - ((((double) air_total) / air_readings) / MCP3427.MAX)) : -1000;
-                           
-                        double wind_direction = -1000;
-                        
-                        final int wind_samples = wind_directions.size ();
+                    if (tens_past != last_tens_past) {
+                        boolean reset_data = false;
                         
-                        if (wind_samples > 0) {
-                            double sin_sum = 0;
-                            double cos_sum = 0;
+                        // Only report if we completed a full ten minute run.
+                        // Otherwise data (e.g. rain rate) may be falsly low.
+                        if (sample_complete) {
+                            final double rain = rain_gauge.getRain ();
+                            final double wind_speed = anemometer.getSpeed ();
+                            final double wind_gust = anemometer.getGust ();
+                            final double air = (air_quality != null) ? air_quality.getQuality () : -1000;
+                            final double bmp180_temperature = (barometer != null) ? barometer.getTemperature () : -1000;
+                            final double pressure = (barometer != null) ? barometer.getPressure () : -1000;
+                            final double htu21d_temperature = (hygrometer != null) ? hygrometer.getTemperature () : -1000;
+                            final double humidity = (hygrometer != null) ? hygrometer.getHumidity () : -1000;
+                            final double ground_temperature = (ground != null) ? ground.getTemperature () : -1000;
+                            final double wind_direction = (wind_vane != null) ? wind_vane.getDirection () : -1000;
                             
-                            for (double d : wind_directions) {
-                                final double radians = Math.toRadians (d);
-                                sin_sum += Math.sin (radians);
-                                cos_sum += Math.cos (radians);
+                            try (PrintStream out = new PrintStream (new FileOutputStream ("/home/pi/weather.data", true))) {
+                                out.printf ("%s,%.2f,%.2f,%.2f,%.2f,%.2f,%.2f,%.2f,%.2f,%.2f,%.2f",
+                                        now.format (DateTimeFormatter.ISO_OFFSET_DATE_TIME),
+                                        rain,
+                                        wind_speed,
+                                        wind_gust,
+                                        air,
+                                        bmp180_temperature,
+                                        pressure,
+                                        htu21d_temperature,
+                                        humidity,
+                                        ground_temperature,
+                                        wind_direction);
+                                out.println ();
+                                out.close ();
+                                
+                                reset_data = true;
                             }
                             
-                            wind_direction = Math.toDegrees (Math.atan2 (sin_sum, cos_sum));
-                            
-                            // If it's negative then make it positive
-                            if (wind_direction < 0)
-                                wind_direction += 360;
+                            catch (FileNotFoundException e) {
+                                log.log (Level.WARNING, "Failed to open output file: {0}", e.getMessage ());
+                            }
                             
-                            wind_directions.clear ();
-                        }
-                        
-                        try (PrintStream out = new PrintStream (new FileOutputStream ("/home/pi/weather.data", true))) {
-                            out.printf ("%s,%.2f,%.2f,%.2f,%.2f,%.2f,%.2f,%.2f,%.2f,%.2f,%.2f",
-                                    now.format (DateTimeFormatter.ISO_OFFSET_DATE_TIME),
-                                    rain_total * calibration.getPulsesToMM (),
+                            if (database.log (now.withNano (0).format (DateTimeFormatter.ISO_LOCAL_DATE_TIME),
+                                    rain,
                                     wind_speed,
-                                    (wind_scale     > 0) ? (wind_peak * wind_scale)          : -1000,
-                                    air_quality,
-                                    (bmp180_readings > 0) ? (bmp180_total / bmp180_readings)    : -1000,
-                                    (bmp180_readings > 0) ? (pressure_total / bmp180_readings) : -1000,
-                                    (htu21d_readings > 0) ? (htu21d_total / htu21d_readings)    : -1000,
-                                    (htu21d_readings > 0) ? (humidity_total / htu21d_readings) : -1000,
-                                    (temp3_readings > 0) ? (temp3_total / temp3_readings)    : -1000,
-                                    wind_direction);
-                            out.println ();
-                            out.close ();
-                            
-                            reset_data = true;
+                                    wind_gust,
+                                    air,
+                                    bmp180_temperature,
+                                    pressure,
+                                    htu21d_temperature,
+                                    humidity,
+                                    wind_direction,
+                                    ground_temperature))
+                                reset_data = true;
+                        }
+                        else
+                        {
+                            // We're startin a new interval, the data will be complete
+                            sample_complete = true;
                         }
                         
-                        catch (FileNotFoundException e) {
-                            log.log (Level.WARNING, "Failed to open output file: {0}", e.getMessage ());
+                        if (reset_data) {
+                            // Reset everything if it all worked
+                            anemometer.reset ();
+                            rain_gauge.reset ();
+                            
+                            if (wind_vane != null)
+                                wind_vane.reset ();
+                            
+                            if (air_quality != null)
+                                air_quality.reset ();
+                            
+                            if (barometer != null)
+                                barometer.reset ();
+                            
+                            if (hygrometer != null)
+                                hygrometer.reset ();
+                            
+                            if (ground != null)
+                                ground.reset ();
                         }
                         
-                        if (database.log (now.withNano (0).format (DateTimeFormatter.ISO_LOCAL_DATE_TIME),
-                                rain_total * calibration.getPulsesToMM (),
-                                wind_speed,
-                                (wind_scale     > 0) ? (wind_peak * wind_scale)          : -1000,
-                                air_quality,
-                                (bmp180_readings > 0) ? (bmp180_total / bmp180_readings)    : -1000,
-                                (bmp180_readings > 0) ? (pressure_total / bmp180_readings) : -1000,
-                                (htu21d_readings > 0) ? (htu21d_total / htu21d_readings)    : -1000,
-                                (htu21d_readings > 0) ? (humidity_total / htu21d_readings) : -1000,
-                                wind_direction,
-                                (temp3_readings > 0) ? (temp3_total / temp3_readings)    : -1000))
-                            reset_data = true;
-                    }
-                    else
-                    {
-                        // We're startin a new interval, the data will be complete
-                        sample_complete = true;
+                        last_tens_past = tens_past;
                     }
                     
-                    if (reset_data) {
-                        // Reset everything if it all worked
-                        rain_total = 0;
-
-                        air_readings = 0;
-                        air_total = 0;
-
-                        wind_readings = 0;
-                        wind_time = 0;
-                        wind_total = 0;
-                        wind_peak = 0;
-
-                        bmp180_readings = 0;
-                        bmp180_total = 0;
-                        pressure_total = 0;
-
-                        htu21d_readings = 0;
-                        htu21d_total = 0;
-                        humidity_total = 0;
-
-                        temp3_readings = 0;
-                        temp3_total = 0;
-                    }
-                                
-                    last_tens_past = tens_past;
+                    // On to the next ten second boundary.
+                    tick = (System.currentTimeMillis () / TICK_PERIOD + 1) * TICK_PERIOD;
                 }
                 
-                Gpio.delay (10000 - (now.getSecond() % 10) * 1000 - now.getNano() / 1000000);
+                Gpio.delay (Math.max (0, Math.min (wait, tick - System.currentTimeMillis ())));
             }
         }
         
@@ -418,5 +356,79 @@ public class WeatherStation {
         return database;
     }
     
+    /**
+     * Get the rollups of the readings at each resolution. These give, for
+     * example, the statistics for the day so far without going to the
+     * database.
+     * @return The rollup engine.
+     */
+    public static RollupEngine getRollups ()
+    {
+        return rollups;
+    }
+    
+    /**
+     * Add a listener to be given each tick's readings. It's called on the
+     * sampling thread so it must be quick.
+     * @param listener The listener.
+     */
+    public static void addListener (ReadingsListener listener)
+    {
+        if (listener == null)
+            throw new IllegalArgumentException ("Invalid parameter to WeatherStation.addListener");
+        
+        listeners.add (listener);
+    }
+    
+    /**
+     * Remove a listener.
+     * @param listener The listener.
+     */
+    public static void removeListener (ReadingsListener listener)
+    {
+        listeners.remove (listener);
+    }
+    
+    /**
+     * Pass a set of readings to all the listeners. A listener that fails is
+     * logged and doesn't stop the others or the sampling.
+     * @param readings The readings.
+     */
+    private static void publish (Readings readings)
+    {
+        for (ReadingsListener listener : listeners) {
+            try {
+                listener.readings (readings);
+            }
+            
+            catch (RuntimeException e) {
+                Logger.getLogger ("WeatherStation").log (Level.WARNING, "Readings listener failed: {0}", e.getMessage ());
+            }
+        }
+    }
+    
     private static Database database;
+    
+    /** The rollups of the readings. */
+    private static final RollupEngine rollups = new RollupEngine ();
+    
+    /** How often we do the housekeeping and pass on readings in ms. */
+    private static final long TICK_PERIOD = 10000;
+    /** How often the wind speed is sampled in ms. */
+    private static final long WIND_SPEED_PERIOD = 10000;
+    /** How often the wind direction is sampled in ms. */
+    private static final long WIND_DIRECTION_PERIOD = 1000;
+    /** How often the rain is sampled in ms. */
+    private static final long RAIN_PERIOD = 10000;
+    /** How often the air quality is sampled in ms. */
+    private static final long AIR_QUALITY_PERIOD = 10000;
+    /** How often the pressure is sampled in ms. */
+    private static final long PRESSURE_PERIOD = 60000;
+    /** How often the humidity is sampled in ms. */
+    private static final long HUMIDITY_PERIOD = 10000;
+    /** How often the ground temperature is sampled in ms. */
+    private static final long GROUND_TEMPERATURE_PERIOD = 30000;
+    
+    /** Things that want each tick's readings. */
+    private static final List<ReadingsListener> listeners = new CopyOnWriteArrayList<> ();
 }
\ No newline at end of file
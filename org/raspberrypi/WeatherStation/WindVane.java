@@ -0,0 +1,112 @@
+/*
+ * Copyright (C) 2016 Jim Darby and the Raspberry Pi Foundation.
+ *
+ * This software is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this software.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.raspberrypi.WeatherStation;
+
+import org.raspberrypi.WeatherStation.DeviceDrivers.Conversion;
+import org.raspberrypi.WeatherStation.DeviceDrivers.MCP3427;
+
+/**
+ * The wind direction sensor, read through an MCP3427.
+ * 
+ * @author Jim Darby
+ */
+public class WindVane implements Sensor {
+    /**
+     * Create the sensor.
+     * @param adc The ADC the vane is on, already set up.
+     * @param direction How to turn ADC readings into directions.
+     * @param rollups Where to roll up the samples.
+     */
+    public WindVane (MCP3427 adc, WindDirection direction, RollupEngine rollups)
+    {
+        adc_ = adc;
+        direction_ = direction;
+        rollups_ = rollups;
+        latest_ = -1000;
+    }
+    
+    @Override
+    public String getName ()
+    {
+        return "Wind direction";
+    }
+    
+    @Override
+    public Conversion getConversion ()
+    {
+        return adc_;
+    }
+    
+    @Override
+    public void sample ()
+    {
+        final double angle = direction_.angleFromADC (adc_.getValue ());
+        
+        if (angle >= 0) {
+            directions_.add (angle);
+            rollups_.addDirection (angle);
+            latest_ = angle;
+        }
+    }
+    
+    @Override
+    public void reset ()
+    {
+        directions_.reset ();
+    }
+    
+    /**
+     * Get the average direction over the window. This is the direction of
+     * the sum of unit vectors for each sample.
+     * @return The direction in degrees or -1000 if there are no samples.
+     */
+    public double getDirection ()
+    {
+        return directions_.getMean (-1000);
+    }
+    
+    /**
+     * Get how much the direction varied over the window.
+     * @return The standard deviation in degrees or -1000 if there are no
+     * samples.
+     */
+    public double getDeviation ()
+    {
+        return directions_.getStandardDeviation (-1000);
+    }
+    
+    /**
+     * Get the most recent direction.
+     * @return The direction in degrees or -1000 if there isn't one.
+     */
+    public double getLatest ()
+    {
+        return latest_;
+    }
+    
+    /** The ADC. */
+    private final MCP3427 adc_;
+    /** The ADC to direction mapping. */
+    private final WindDirection direction_;
+    /** Where the samples are rolled up. */
+    private final RollupEngine rollups_;
+    /** The directions over the window. */
+    private final CircularStatistics directions_ = new CircularStatistics ();
+    /** The most recent direction. */
+    private double latest_;
+}